@@ -32,16 +32,32 @@ public abstract class AbstractZookeeperPropertySource
 
 	private String context;
 
+	private final String contextPrefix;
+
 	public AbstractZookeeperPropertySource(String context, CuratorFramework source) {
 		super(context, source);
 		this.context = context;
 		if (!this.context.startsWith("/")) {
 			this.context = "/" + this.context;
 		}
+		this.contextPrefix = this.context + "/";
 	}
 
 	protected String sanitizeKey(String path) {
-		return path.replace(this.context + "/", "").replace('/', '.');
+		int start = this.contextPrefix.length();
+		if (!path.startsWith(this.contextPrefix)
+				|| path.indexOf(this.contextPrefix, start) >= 0) {
+			return path.replace(this.contextPrefix, "").replace('/', '.');
+		}
+		// the usual path below the context, the key is made in a single copy
+		char[] key = new char[path.length() - start];
+		path.getChars(start, path.length(), key, 0);
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] == '/') {
+				key[i] = '.';
+			}
+		}
+		return new String(key);
 	}
 
 	public String getContext() {
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Watcher.Stagger;
+
+/**
+ * Decides when the changes seen by a {@link ConfigWatcher} are applied. The changes are
+ * collected until the contexts have stayed unchanged for the quiet period, or at most ten
+ * quiet periods, and the reads of an instance are delayed within the stagger window,
+ * except for changes to urgent keys, which are applied right away on their own while the
+ * other changes keep waiting for their delay. The changes are applied on a thread of the
+ * scheduler, never on the Zookeeper event thread.
+ *
+ * @since 5.0.3
+ */
+final class ConfigChangeScheduler implements Closeable {
+
+	/**
+	 * Changes are applied at the latest after this many quiet periods, even if the
+	 * contexts keep changing.
+	 */
+	private static final int MAX_QUIET_PERIODS = 10;
+
+	private final List<String> contexts = new ArrayList<>();
+
+	private final long quietPeriod;
+
+	private final long staggerWindow;
+
+	private final Stagger stagger;
+
+	private final String instanceId;
+
+	private final List<String> urgentKeys;
+
+	private final BiConsumer<Set<String>, Set<String>> apply;
+
+	private ScheduledExecutorService executor;
+
+	private boolean closed;
+
+	private Set<String> changedPaths;
+
+	private Set<String> changedKeys;
+
+	private long changedSince;
+
+	private boolean staggered;
+
+	private long staggerUntil;
+
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * @param contexts the watched contexts
+	 * @param watcher the properties of the watcher
+	 * @param instanceId the id of this instance, {@code null} if unknown
+	 * @param apply applies the changed paths along with the keys already changed
+	 */
+	ConfigChangeScheduler(List<String> contexts, ZookeeperConfigProperties.Watcher watcher,
+			String instanceId, BiConsumer<Set<String>, Set<String>> apply) {
+		for (String context : contexts) {
+			this.contexts.add(context.startsWith("/") ? context : "/" + context);
+		}
+		this.quietPeriod = nanos(watcher.getQuietPeriod());
+		this.staggerWindow = nanos(watcher.getStaggerWindow());
+		this.stagger = watcher.getStagger();
+		this.instanceId = instanceId;
+		this.urgentKeys = watcher.getUrgentKeys() != null ? watcher.getUrgentKeys()
+				: new ArrayList<>();
+		this.apply = apply;
+	}
+
+	/**
+	 * @return whether the changes are collected over a quiet period
+	 */
+	boolean isQuiet() {
+		return this.quietPeriod > 0;
+	}
+
+	/**
+	 * @return whether the changes may be applied later than they are seen
+	 */
+	boolean isDelayed() {
+		return this.quietPeriod > 0 || this.staggerWindow > 0;
+	}
+
+	/**
+	 * Runs a task on the thread of the scheduler right away.
+	 */
+	synchronized void execute(Runnable task) {
+		if (!this.closed) {
+			executor().execute(task);
+		}
+	}
+
+	/**
+	 * Adds changes to the ones to apply and schedules their application.
+	 * @param paths the changed paths, to be read
+	 * @param keys the keys already changed in the environment
+	 */
+	void changed(Set<String> paths, Set<String> keys) {
+		long now = System.nanoTime();
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			Set<String> urgentChangedPaths = urgentPaths(paths);
+			Set<String> urgentChangedKeys = urgentKeys(keys);
+			if (!urgentChangedPaths.isEmpty() || !urgentChangedKeys.isEmpty()) {
+				// the other changes keep waiting for their own delay
+				executor().execute(() -> applyUrgent(urgentChangedPaths, urgentChangedKeys));
+				paths = without(paths, urgentChangedPaths);
+				keys = without(keys, urgentChangedKeys);
+				if (paths.isEmpty() && keys.isEmpty()) {
+					return;
+				}
+			}
+			if (this.changedPaths == null) {
+				this.changedPaths = new LinkedHashSet<>();
+				this.changedKeys = new LinkedHashSet<>();
+				this.changedSince = now;
+			}
+			if (!paths.isEmpty() && !this.staggered) {
+				// only reads are staggered, live property sources already applied their keys
+				this.staggered = true;
+				this.staggerUntil = now + staggerDelay();
+			}
+			this.changedPaths.addAll(paths);
+			this.changedKeys.addAll(keys);
+			if (this.scheduled != null) {
+				this.scheduled.cancel(false);
+			}
+			long latest = this.changedSince + this.quietPeriod * MAX_QUIET_PERIODS - now;
+			long delay = Math.max(0, Math.min(this.quietPeriod, latest));
+			if (this.staggered) {
+				delay = Math.max(delay, this.staggerUntil - now);
+			}
+			this.scheduled = executor().schedule(this::applyChanges, delay,
+					TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private long staggerDelay() {
+		if (this.staggerWindow <= 0) {
+			return 0;
+		}
+		if (this.stagger == Stagger.INSTANCE && this.instanceId != null) {
+			CRC32 crc = new CRC32();
+			crc.update(this.instanceId.getBytes(StandardCharsets.UTF_8));
+			return (long) (this.staggerWindow * (crc.getValue() / (double) (1L << 32)));
+		}
+		return ThreadLocalRandom.current().nextLong(this.staggerWindow);
+	}
+
+	private Set<String> urgentKeys(Set<String> keys) {
+		Set<String> urgent = new LinkedHashSet<>();
+		if (!this.urgentKeys.isEmpty()) {
+			for (String key : keys) {
+				if (isUrgent(key)) {
+					urgent.add(key);
+				}
+			}
+		}
+		return urgent;
+	}
+
+	private Set<String> urgentPaths(Set<String> paths) {
+		Set<String> urgent = new LinkedHashSet<>();
+		if (!this.urgentKeys.isEmpty()) {
+			for (String path : paths) {
+				for (String root : this.contexts) {
+					if (path.startsWith(root + "/") && isUrgent(
+							path.substring(root.length() + 1).replace('/', '.'))) {
+						urgent.add(path);
+						break;
+					}
+				}
+			}
+		}
+		return urgent;
+	}
+
+	private static Set<String> without(Set<String> changes, Set<String> urgent) {
+		if (urgent.isEmpty()) {
+			return changes;
+		}
+		Set<String> remaining = new LinkedHashSet<>(changes);
+		remaining.removeAll(urgent);
+		return remaining;
+	}
+
+	private boolean isUrgent(String key) {
+		for (String urgentKey : this.urgentKeys) {
+			if (key.equals(urgentKey) || key.startsWith(urgentKey + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void applyChanges() {
+		Set<String> paths;
+		Set<String> keys;
+		synchronized (this) {
+			paths = this.changedPaths;
+			keys = this.changedKeys;
+			this.changedPaths = null;
+			this.changedKeys = null;
+			this.staggered = false;
+			this.scheduled = null;
+			if (paths == null || this.closed) {
+				return;
+			}
+		}
+		this.apply.accept(paths, keys);
+	}
+
+	private void applyUrgent(Set<String> paths, Set<String> keys) {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+		}
+		this.apply.accept(paths, keys);
+	}
+
+	private ScheduledExecutorService executor() {
+		if (this.executor == null) {
+			// refreshes read from Zookeeper, they must not run on its event thread
+			this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "zookeeper-config-watcher");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.executor;
+	}
+
+	private static long nanos(Duration duration) {
+		return duration != null ? duration.toNanos() : 0;
+	}
+
+	@Override
+	public synchronized void close() {
+		this.closed = true;
+		this.changedPaths = null;
+		this.changedKeys = null;
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Patches the keys of the paths changed in Zookeeper into the property sources they were
+ * loaded in, each property source getting a patched copy of its properties at once.
+ * Live property sources apply their changes themselves, and the keys of lazy property
+ * sources are updated from the stat of the changed znodes. With a version marker, the
+ * context of a changed marker is reloaded instead. The snapshots of the patched contexts
+ * are written again.
+ *
+ * @since 5.0.3
+ */
+final class ConfigPatcher {
+
+	private final CuratorFramework source;
+
+	private final boolean document;
+
+	private final boolean versionMarker;
+
+	private final int reloadConcurrency;
+
+	private final ZookeeperConfigSnapshots snapshots;
+
+	/**
+	 * @param source the Curator client
+	 * @param properties the configuration properties
+	 */
+	ConfigPatcher(CuratorFramework source, ZookeeperConfigProperties properties) {
+		this.source = source;
+		this.document = properties.getFormat() != ZookeeperConfigProperties.Format.KEY_VALUE;
+		this.versionMarker = properties.getWatcher().isVersionMarker();
+		this.reloadConcurrency = properties.getWatcher().getReloadConcurrency();
+		this.snapshots = ZookeeperConfigSnapshots.of(properties);
+	}
+
+	/**
+	 * Patches the keys of the changed paths into the property sources they were loaded
+	 * in.
+	 * @param paths the changed paths
+	 * @param sources the property sources of the environment
+	 * @param caches the tree caches of the watched contexts, by context, {@code null}
+	 * to read the znodes from Zookeeper
+	 * @return the changed keys, or {@code null} if not every path could be patched and a
+	 * full refresh is needed
+	 * @throws Exception if a znode could not be read
+	 */
+	Set<String> patch(Set<String> paths, List<ZookeeperPropertySource> sources,
+			Map<String, TreeCache> caches) throws Exception {
+		if (this.document) {
+			// reloading a document takes a single read
+			return null;
+		}
+		Map<ZookeeperPropertySource, Patch> patches = new LinkedHashMap<>();
+		Map<ZookeeperLazyPropertySource, Map<String, Stat>> lazyChanges = new LinkedHashMap<>();
+		Set<String> lazyKeys = new LinkedHashSet<>();
+		for (String path : paths) {
+			boolean found = false;
+			for (ZookeeperPropertySource propertySource : sources) {
+				String root = propertySource.getContext();
+				if (propertySource instanceof ZookeeperLivePropertySource
+						|| !path.startsWith(root)) {
+					continue;
+				}
+				if (path.equals(root)) {
+					found = true;
+					if (this.versionMarker
+							&& propertySource instanceof ZookeeperLazyPropertySource) {
+						lazyKeys.addAll(reload((ZookeeperLazyPropertySource) propertySource,
+								readStat(path, caches)));
+					}
+					else if (this.versionMarker) {
+						reload(patches.computeIfAbsent(propertySource, Patch::new),
+								read(path, caches));
+					}
+					// otherwise the context itself has no key, its descendants have their
+					// own events
+					continue;
+				}
+				if (path.charAt(root.length()) != '/') {
+					continue;
+				}
+				found = true;
+				if (propertySource instanceof ZookeeperLazyPropertySource) {
+					// only the keys are kept, their values are read again when used
+					Map<String, Stat> changes = lazyChanges.computeIfAbsent(
+							(ZookeeperLazyPropertySource) propertySource,
+							lazy -> new LinkedHashMap<>());
+					changes.put(path, readStat(path, caches));
+					String parent = ZKPaths.getPathAndNode(path).getPath();
+					if (!parent.equals(root)) {
+						changes.put(parent, readStat(parent, caches));
+					}
+					continue;
+				}
+				Patch patch = patches.computeIfAbsent(propertySource, Patch::new);
+				patch.apply(path, read(path, caches));
+				String parent = ZKPaths.getPathAndNode(path).getPath();
+				if (!parent.equals(root)) {
+					// the parent's own key depends on whether it has children
+					patch.apply(parent, read(parent, caches));
+				}
+			}
+			if (!found) {
+				return null;
+			}
+		}
+		Set<String> keys = new LinkedHashSet<>();
+		for (Patch patch : patches.values()) {
+			if (!patch.keys.isEmpty() || patch.zxid > patch.source.getZxid()) {
+				patch.source.setProperties(patch.properties, patch.zxid);
+				if (this.snapshots != null) {
+					// a restart must not serve the properties from before the patch
+					this.snapshots.write(patch.source.getContext(), patch.source);
+				}
+				keys.addAll(patch.keys);
+			}
+		}
+		lazyChanges.forEach((lazy, changes) -> keys.addAll(lazy.update(changes)));
+		keys.addAll(lazyKeys);
+		return keys;
+	}
+
+	/**
+	 * Finds the keys of a lazy context again if its version marker changed since.
+	 * @param marker the stat of the context, {@code null} if it was deleted
+	 */
+	private Set<String> reload(ZookeeperLazyPropertySource lazy, Stat marker) {
+		if (marker != null && marker.getMzxid() <= lazy.getZxid()) {
+			return Collections.emptySet();
+		}
+		return lazy.reload(this.reloadConcurrency,
+				marker != null ? marker.getMzxid() : 0);
+	}
+
+	/**
+	 * Reloads a context whose version marker changed since it was loaded.
+	 * @param marker the znode of the context, {@code null} if it was deleted
+	 */
+	private void reload(Patch patch, Node marker) {
+		long zxid = 0;
+		if (marker != null && marker.stat != null) {
+			zxid = marker.stat.getMzxid();
+			// the keys changed with the marker have its zxid, or a lower one if removed
+			if (zxid <= patch.zxid) {
+				return;
+			}
+		}
+		patch.replace(new ZookeeperPropertySource(patch.source.getContext(), this.source,
+				this.reloadConcurrency), zxid);
+	}
+
+	/**
+	 * Reads a znode from the tree cache of its context or, without one, from Zookeeper.
+	 * @return the znode, or {@code null} if it doesn't exist
+	 */
+	private Node read(String path, Map<String, TreeCache> caches) throws Exception {
+		if (caches != null) {
+			for (Map.Entry<String, TreeCache> entry : caches.entrySet()) {
+				if (path.equals(entry.getKey())
+						|| path.startsWith(entry.getKey() + "/")) {
+					ChildData data = entry.getValue().getCurrentData(path);
+					Map<String, ChildData> children = entry.getValue()
+							.getCurrentChildren(path);
+					return data == null ? null : new Node(data.getData(), data.getStat(),
+							children != null && !children.isEmpty());
+				}
+			}
+		}
+		try {
+			Stat stat = new Stat();
+			byte[] data = this.source.getData().storingStatIn(stat).forPath(path);
+			List<String> children = this.source.getChildren().forPath(path);
+			return new Node(data, stat, !children.isEmpty());
+		}
+		catch (KeeperException.NoNodeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the stat of a znode from the tree cache of its context or, without one,
+	 * from Zookeeper.
+	 * @return the stat, or {@code null} if the znode doesn't exist
+	 */
+	private Stat readStat(String path, Map<String, TreeCache> caches) throws Exception {
+		if (caches != null) {
+			Node node = read(path, caches);
+			return node != null ? node.stat : null;
+		}
+		return this.source.checkExists().forPath(path);
+	}
+
+	/**
+	 * A read znode and whether it has children.
+	 */
+	private static final class Node {
+
+		private final byte[] data;
+
+		private final Stat stat;
+
+		private final boolean parent;
+
+		Node(byte[] data, Stat stat, boolean parent) {
+			this.data = data;
+			this.stat = stat;
+			this.parent = parent;
+		}
+
+	}
+
+	/**
+	 * The changes to the properties of a property source, applied to a copy so that
+	 * readers see either all of them or none.
+	 */
+	private static final class Patch {
+
+		private final ZookeeperPropertySource source;
+
+		private final Map<String, String> properties;
+
+		private final Set<String> keys = new LinkedHashSet<>();
+
+		private long zxid;
+
+		Patch(ZookeeperPropertySource source) {
+			this.source = source;
+			this.properties = new LinkedHashMap<>(source.getProperties());
+			this.zxid = source.getZxid();
+		}
+
+		void apply(String path, Node node) {
+			// the same rules as when the properties are loaded
+			String key = this.source.sanitizeKey(path);
+			String value = null;
+			if (node != null) {
+				value = ZookeeperPropertySource.getValue(node.data, node.parent);
+				if (node.stat != null) {
+					this.zxid = Math.max(this.zxid,
+							Math.max(node.stat.getMzxid(), node.stat.getPzxid()));
+				}
+			}
+			String previous = value != null ? this.properties.put(key, value)
+					: this.properties.remove(key);
+			if (value == null ? previous != null : !value.equals(previous)) {
+				this.keys.add(key);
+			}
+		}
+
+		void replace(ZookeeperPropertySource loaded, long markerZxid) {
+			Map<String, String> properties = loaded.getProperties();
+			for (String key : this.properties.keySet()) {
+				if (!properties.containsKey(key)) {
+					this.keys.add(key);
+				}
+			}
+			properties.forEach((key, value) -> {
+				if (!value.equals(this.properties.get(key))) {
+					this.keys.add(key);
+				}
+			});
+			this.properties.clear();
+			this.properties.putAll(properties);
+			this.zxid = Math.max(this.zxid, Math.max(loaded.getZxid(), markerZxid));
+		}
+
+	}
+
+}
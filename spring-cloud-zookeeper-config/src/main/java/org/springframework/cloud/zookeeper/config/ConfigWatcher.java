@@ -18,8 +18,13 @@ package org.springframework.cloud.zookeeper.config;
 
 import java.io.Closeable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import jakarta.annotation.PostConstruct;
@@ -29,25 +34,69 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.recipes.watch.PersistentWatcher;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 
+import org.springframework.cloud.bootstrap.config.BootstrapPropertySource;
+import org.springframework.cloud.commons.util.IdUtils;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
 import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.util.StringUtils;
 
+import static org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type.INITIALIZED;
 import static org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type.NODE_ADDED;
 import static org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type.NODE_REMOVED;
 import static org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type.NODE_UPDATED;
 
 /**
  * Class that registers a {@link TreeCache} for each context. It publishes events upon
- * element change in Zookeeper.
+ * element change in Zookeeper. Depending on the {@link ZookeeperWatchMode}, a single
+ * persistent recursive watch that doesn't cache any data can be set on each context
+ * instead. The nodes a tree cache finds while it initializes are already loaded, only
+ * the changes seen after that are published.
+ * <p>
+ * By default, every change publishes a {@link RefreshEvent} reloading every context.
+ * With a quiet period, the changed paths are collected until the contexts have stayed
+ * unchanged for that long. Only the keys of those paths are then patched into the loaded
+ * {@link ZookeeperPropertySource property sources}, followed by a single
+ * {@link EnvironmentChangeEvent} and a refresh of the {@link RefreshScope}. When patching
+ * is enabled, every change is patched that way, followed by a
+ * {@link ZookeeperConfigChangeEvent} with exactly the changed keys, which only rebinds
+ * the beans bound to them. With a stagger window, each instance also delays reading the
+ * changes within that window, except for urgent keys. The {@link ConfigChangeScheduler}
+ * decides when the changes are applied, the {@link ConfigPatcher} patches them.
+ * <p>
+ * With a version marker, only the znode of each context is watched, and the context is
+ * reloaded when publishers bump it, so that each client sets a watch per context rather
+ * than per key.
+ * <p>
+ * A context served by a {@link ZookeeperLivePropertySource} is not watched again, the
+ * changes that property source already applied only rebind the affected beans. The
+ * keys of a {@link ZookeeperLazyPropertySource} are updated from the stat of the changed
+ * znodes, their values being read again when they are next used. A
+ * {@link ZookeeperMergedPropertySource} is merged again once its contexts are patched.
+ * The live property sources a refresh replaces are closed, and the ones it loaded are
+ * listened to instead.
  *
  * @author Spencer Gibb
  * @since 1.0.0
  */
-public class ConfigWatcher
-		implements Closeable, TreeCacheListener, ApplicationEventPublisherAware {
+public class ConfigWatcher implements Closeable, TreeCacheListener,
+		ApplicationEventPublisherAware, ApplicationContextAware,
+		ApplicationListener<EnvironmentChangeEvent> {
 
 	private static final Log log = LogFactory.getLog(ConfigWatcher.class);
 
@@ -59,11 +108,52 @@ public class ConfigWatcher
 
 	private ApplicationEventPublisher publisher;
 
+	private ApplicationContext applicationContext;
+
 	private HashMap<String, TreeCache> caches;
 
+	private final ZookeeperConfigProperties properties;
+
+	private final ZookeeperWatchMode mode;
+
+	private final String documentKey;
+
+	private final boolean patch;
+
+	private final ConfigPatcher patcher;
+
+	private ConfigChangeScheduler scheduler;
+
+	private HashMap<String, PersistentWatcher> watchers;
+
+	// property sources are equal by name, the replaced ones are told apart by identity
+	private final Set<ZookeeperLivePropertySource> livePropertySources = Collections
+			.newSetFromMap(new IdentityHashMap<>());
+
+	private final AtomicBoolean resetPending = new AtomicBoolean();
+
 	public ConfigWatcher(List<String> contexts, CuratorFramework source) {
+		this(contexts, source, new ZookeeperConfigProperties());
+	}
+
+	/**
+	 * @param contexts the contexts to watch
+	 * @param source the Curator client
+	 * @param properties the configuration properties, the ones of the watcher telling
+	 * how the contexts are watched and how their changes are applied
+	 * @since 5.0.3
+	 */
+	public ConfigWatcher(List<String> contexts, CuratorFramework source,
+			ZookeeperConfigProperties properties) {
 		this.contexts = contexts;
 		this.source = source;
+		this.properties = properties;
+		this.mode = properties.getWatcher().getMode();
+		// a document is watched as a single znode
+		this.documentKey = properties.getFormat() != ZookeeperConfigProperties.Format.KEY_VALUE
+				? properties.getDataKey() : null;
+		this.patch = properties.getWatcher().isPatch();
+		this.patcher = new ConfigPatcher(source, properties);
 	}
 
 	@Override
@@ -71,51 +161,368 @@ public class ConfigWatcher
 		this.publisher = publisher;
 	}
 
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
 	@PostConstruct
 	public void start() {
-		if (this.running.compareAndSet(false, true)) {
-			this.caches = new HashMap<>();
-			for (String context : this.contexts) {
-				if (!context.startsWith("/")) {
-					context = "/" + context;
-				}
-				try {
-					TreeCache cache = TreeCache.newBuilder(this.source, context).build();
-					cache.getListenable().addListener(this);
-					cache.start();
-					this.caches.put(context, cache);
-					// no race condition since ZookeeperAutoConfiguration.curatorFramework
-					// calls curator.blockUntilConnected
-				}
-				catch (KeeperException.NoNodeException e) {
-					// no node, ignore
-				}
-				catch (Exception e) {
-					log.error("Error initializing listener for context " + context, e);
-				}
+		if (!this.running.compareAndSet(false, true)) {
+			return;
+		}
+		String instanceId = this.applicationContext != null
+				? IdUtils.getDefaultInstanceId(this.applicationContext.getEnvironment())
+				: null;
+		this.scheduler = new ConfigChangeScheduler(this.contexts,
+				this.properties.getWatcher(), instanceId, this::applyChanges);
+		if (this.mode != ZookeeperWatchMode.TREE_CACHE) {
+			startPersistentWatchers();
+			return;
+		}
+		this.caches = new HashMap<>();
+		for (String context : this.contexts) {
+			if (!context.startsWith("/")) {
+				context = "/" + context;
+			}
+			if (adoptLivePropertySources(context)) {
+				continue;
+			}
+			try {
+				TreeCache cache = TreeCache.newBuilder(this.source, watchedPath(context))
+						.setMaxDepth(watchesSingleZnode() ? 0 : Integer.MAX_VALUE)
+						.build();
+				cache.getListenable().addListener(new InitializedListener());
+				cache.start();
+				this.caches.put(context, cache);
+				// no race condition since ZookeeperAutoConfiguration.curatorFramework
+				// calls curator.blockUntilConnected
+			}
+			catch (KeeperException.NoNodeException e) {
+				// no node, ignore
+			}
+			catch (Exception e) {
+				log.error("Error initializing listener for context " + context, e);
+			}
+		}
+	}
+
+	private void startPersistentWatchers() {
+		this.watchers = new HashMap<>();
+		for (String context : this.contexts) {
+			if (!context.startsWith("/")) {
+				context = "/" + context;
+			}
+			if (adoptLivePropertySources(context)) {
+				continue;
+			}
+			try {
+				// a persistent watch can be set on a node that doesn't exist yet
+				PersistentWatcher watcher = new PersistentWatcher(this.source,
+						watchedPath(context), !watchesSingleZnode());
+				watcher.getListenable().addListener(this::process);
+				// changes may have been missed while disconnected, the first reset is the
+				// watch being set
+				AtomicBoolean started = new AtomicBoolean();
+				watcher.getResetListenable().addListener(() -> {
+					if (!started.compareAndSet(false, true)) {
+						reset();
+					}
+				});
+				watcher.start();
+				this.watchers.put(context, watcher);
+			}
+			catch (Exception e) {
+				log.error("Error initializing listener for context " + context, e);
 			}
 		}
 	}
 
+	private boolean watchesSingleZnode() {
+		return this.documentKey != null || this.properties.getWatcher().isVersionMarker();
+	}
+
+	private String watchedPath(String context) {
+		return StringUtils.hasLength(this.documentKey)
+				? ZKPaths.makePath(context, this.documentKey) : context;
+	}
+
+	private void process(WatchedEvent event) {
+		if (!this.running.get()) {
+			return;
+		}
+		Watcher.Event.EventType type = event.getType();
+		if (type == Watcher.Event.EventType.NodeCreated
+				|| type == Watcher.Event.EventType.NodeDeleted
+				|| (type == Watcher.Event.EventType.NodeDataChanged
+						&& (this.mode != ZookeeperWatchMode.STRUCTURE_ONLY
+								|| watchesSingleZnode()))) {
+			if (isDeferred()) {
+				changed(event.getPath());
+				return;
+			}
+			String eventDesc = "type=" + type + ", path=" + event.getPath();
+			// refreshes read from Zookeeper, they must not run on its event thread
+			this.scheduler.execute(() -> refresh(event, eventDesc));
+		}
+	}
+
+	/**
+	 * Reloads every context once the watches are set again, the resets of the contexts
+	 * after a reconnection being coalesced into a single refresh.
+	 */
+	private void reset() {
+		if (this.running.get() && this.resetPending.compareAndSet(false, true)) {
+			this.scheduler.execute(() -> {
+				this.resetPending.set(false);
+				refresh(this.contexts, "reconnected, contexts=" + this.contexts);
+			});
+		}
+	}
+
 	@Override
 	public void close() {
 		if (this.running.compareAndSet(true, false)) {
-			for (TreeCache cache : this.caches.values()) {
-				cache.close();
+			if (this.caches != null) {
+				for (TreeCache cache : this.caches.values()) {
+					cache.close();
+				}
+				this.caches = null;
 			}
-			this.caches = null;
+			if (this.watchers != null) {
+				for (PersistentWatcher watcher : this.watchers.values()) {
+					watcher.close();
+				}
+				this.watchers = null;
+			}
+			synchronized (this.livePropertySources) {
+				for (ZookeeperLivePropertySource live : this.livePropertySources) {
+					live.close();
+				}
+				this.livePropertySources.clear();
+			}
+			this.scheduler.close();
 		}
 	}
 
 	@Override
 	public void childEvent(CuratorFramework client, TreeCacheEvent event)
 			throws Exception {
+		if (!this.running.get()) {
+			return;
+		}
 		TreeCacheEvent.Type eventType = event.getType();
 		if (eventType == NODE_ADDED || eventType == NODE_REMOVED
 				|| eventType == NODE_UPDATED) {
-			this.publisher
-					.publishEvent(new RefreshEvent(this, event, getEventDesc(event)));
+			if (isDeferred()) {
+				changed(event.getData().getPath());
+				return;
+			}
+			refresh(event, getEventDesc(event));
+		}
+	}
+
+	/**
+	 * Whether the changes are patched into the loaded property sources rather than
+	 * reloaded by a refresh.
+	 */
+	private boolean isPatching() {
+		return this.patch || this.scheduler.isQuiet();
+	}
+
+	/**
+	 * Whether the changes are handed to the scheduler rather than published right away.
+	 */
+	private boolean isDeferred() {
+		return isPatching() || this.scheduler.isDelayed();
+	}
+
+	private void changed(String path) {
+		this.scheduler.changed(Collections.singleton(path), Collections.emptySet());
+	}
+
+	private void liveChanged(Set<String> keys) {
+		if (!this.running.get()) {
+			return;
 		}
+		if (isDeferred()) {
+			this.scheduler.changed(Collections.emptySet(), keys);
+			return;
+		}
+		publishChange(keys);
+	}
+
+	/**
+	 * Applies the changes collected by the scheduler, on its thread.
+	 * @param paths the changed paths, to be read
+	 * @param keys the keys live property sources already changed
+	 */
+	private void applyChanges(Set<String> paths, Set<String> keys) {
+		if (!this.running.get()) {
+			return;
+		}
+		if (!paths.isEmpty()) {
+			Set<String> patched = null;
+			try {
+				patched = isPatching() ? patch(paths) : null;
+			}
+			catch (Exception e) {
+				log.warn("Unable to apply the changes of " + paths + ", refreshing instead",
+						e);
+			}
+			if (patched == null) {
+				refresh(paths, "paths=" + paths);
+				return;
+			}
+			keys.addAll(patched);
+		}
+		publishChange(keys);
+	}
+
+	/**
+	 * Publishes a refresh reloading every context. The refresh reloads them on the
+	 * publishing thread, which limits their reads to the reload concurrency.
+	 */
+	private void refresh(Object event, String eventDesc) {
+		ZookeeperPropertySources.reloading(this.properties.getWatcher().getReloadConcurrency(),
+				() -> this.publisher.publishEvent(new RefreshEvent(this, event, eventDesc)));
+	}
+
+	/**
+	 * Patches the changed paths into the property sources of the environment.
+	 * @return the changed keys, or {@code null} if a full refresh is needed
+	 */
+	private Set<String> patch(Set<String> paths) throws Exception {
+		Set<String> keys = this.patcher.patch(paths, getPropertySources(), this.caches);
+		if (keys != null && !keys.isEmpty()) {
+			rebuildMergedPropertySources();
+		}
+		return keys;
+	}
+
+	/**
+	 * Merges the patched properties into the merged property sources again.
+	 */
+	private void rebuildMergedPropertySources() {
+		if (this.applicationContext instanceof ConfigurableApplicationContext) {
+			ConfigurableApplicationContext context =
+					(ConfigurableApplicationContext) this.applicationContext;
+			for (PropertySource<?> propertySource : context.getEnvironment()
+					.getPropertySources()) {
+				if (propertySource instanceof BootstrapPropertySource) {
+					propertySource = ((BootstrapPropertySource<?>) propertySource).getDelegate();
+				}
+				if (propertySource instanceof ZookeeperMergedPropertySource) {
+					((ZookeeperMergedPropertySource) propertySource).rebuild();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tells about changed keys, which are already in the environment.
+	 */
+	private void publishChange(Set<String> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		if (log.isInfoEnabled()) {
+			log.info("Zookeeper config changed, keys: " + keys);
+		}
+		if (this.patch) {
+			this.publisher.publishEvent(new ZookeeperConfigChangeEvent(this, keys));
+			return;
+		}
+		// every bound bean is rebound, as after a refresh
+		this.publisher.publishEvent(new EnvironmentChangeEvent(this.applicationContext, keys));
+		this.applicationContext.getBeanProvider(RefreshScope.class)
+				.ifAvailable(RefreshScope::refreshAll);
+	}
+
+	private List<ZookeeperPropertySource> getPropertySources() {
+		List<ZookeeperPropertySource> sources = new ArrayList<>();
+		if (this.applicationContext instanceof ConfigurableApplicationContext) {
+			ConfigurableApplicationContext context =
+					(ConfigurableApplicationContext) this.applicationContext;
+			for (PropertySource<?> propertySource : context.getEnvironment()
+					.getPropertySources()) {
+				collect(propertySource, sources);
+			}
+		}
+		return sources;
+	}
+
+	private static void collect(PropertySource<?> propertySource,
+			List<ZookeeperPropertySource> sources) {
+		if (propertySource instanceof ZookeeperPropertySource) {
+			sources.add((ZookeeperPropertySource) propertySource);
+		}
+		else if (propertySource instanceof BootstrapPropertySource) {
+			collect(((BootstrapPropertySource<?>) propertySource).getDelegate(), sources);
+		}
+		else if (propertySource instanceof ZookeeperMergedPropertySource) {
+			sources.addAll(((ZookeeperMergedPropertySource) propertySource).getPropertySources());
+		}
+		else if (propertySource instanceof CompositePropertySource) {
+			for (PropertySource<?> nested : ((CompositePropertySource) propertySource)
+					.getPropertySources()) {
+				collect(nested, sources);
+			}
+		}
+	}
+
+	/**
+	 * Listens to the changes of the live property sources of a context, which need no
+	 * watch of their own.
+	 * @return whether the context has live property sources
+	 */
+	private boolean adoptLivePropertySources(String context) {
+		boolean adopted = false;
+		for (ZookeeperPropertySource propertySource : getPropertySources()) {
+			if (propertySource instanceof ZookeeperLivePropertySource
+					&& propertySource.getContext().equals(context)) {
+				adopt((ZookeeperLivePropertySource) propertySource);
+				adopted = true;
+			}
+		}
+		return adopted;
+	}
+
+	private void adopt(ZookeeperLivePropertySource live) {
+		synchronized (this.livePropertySources) {
+			if (this.livePropertySources.add(live)) {
+				live.setChangeListener(this::liveChanged);
+			}
+		}
+	}
+
+	/**
+	 * Closes the live property sources a refresh replaced, along with their tree cache,
+	 * and listens to the ones it loaded instead.
+	 */
+	@Override
+	public void onApplicationEvent(EnvironmentChangeEvent event) {
+		if (!this.running.get()) {
+			return;
+		}
+		Set<ZookeeperLivePropertySource> current = Collections
+				.newSetFromMap(new IdentityHashMap<>());
+		for (ZookeeperPropertySource propertySource : getPropertySources()) {
+			if (propertySource instanceof ZookeeperLivePropertySource) {
+				current.add((ZookeeperLivePropertySource) propertySource);
+			}
+		}
+		synchronized (this.livePropertySources) {
+			for (Iterator<ZookeeperLivePropertySource> iterator = this.livePropertySources
+					.iterator(); iterator.hasNext();) {
+				ZookeeperLivePropertySource live = iterator.next();
+				if (!current.contains(live)) {
+					live.close();
+					iterator.remove();
+				}
+			}
+		}
+		current.forEach(this::adopt);
 	}
 
 	public String getEventDesc(TreeCacheEvent event) {
@@ -129,4 +536,25 @@ public class ConfigWatcher
 		return out.toString();
 	}
 
+	/**
+	 * Passes the events of a tree cache on once it is initialized, the nodes it finds
+	 * until then being already loaded.
+	 */
+	private final class InitializedListener implements TreeCacheListener {
+
+		private volatile boolean initialized;
+
+		@Override
+		public void childEvent(CuratorFramework client, TreeCacheEvent event)
+				throws Exception {
+			if (event.getType() == INITIALIZED) {
+				this.initialized = true;
+			}
+			else if (this.initialized) {
+				ConfigWatcher.this.childEvent(client, event);
+			}
+		}
+
+	}
+
 }
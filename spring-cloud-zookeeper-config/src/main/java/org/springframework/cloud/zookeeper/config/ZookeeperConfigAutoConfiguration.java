@@ -21,10 +21,14 @@ import java.util.List;
 
 import org.apache.curator.framework.CuratorFramework;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
 import org.springframework.cloud.endpoint.RefreshEndpoint;
 import org.springframework.cloud.zookeeper.ConditionalOnZookeeperEnabled;
 import org.springframework.context.annotation.Bean;
@@ -51,8 +55,8 @@ public class ZookeeperConfigAutoConfiguration {
 		@Bean
 		@ConditionalOnBean(ZookeeperPropertySourceLocator.class)
 		public ConfigWatcher propertySourceLocatorConfigWatcher(ZookeeperPropertySourceLocator locator,
-				CuratorFramework curator) {
-			return new ConfigWatcher(locator.getContexts(), curator);
+				CuratorFramework curator, Environment env) {
+			return createConfigWatcher(locator.getContexts(), curator, env);
 		}
 
 		@Bean
@@ -60,7 +64,24 @@ public class ZookeeperConfigAutoConfiguration {
 		public ConfigWatcher configDataConfigWatcher(CuratorFramework curator, Environment env) {
 			List<String> contexts = env.getProperty("spring.cloud.zookeeper.config.property-source-contexts",
 					List.class, Collections.emptyList());
-			return new ConfigWatcher(contexts, curator);
+			return createConfigWatcher(contexts, curator, env);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ZookeeperConfigChangeRebinder zookeeperConfigChangeRebinder(
+				ObjectProvider<ConfigurationPropertiesRebinder> rebinder,
+				ObjectProvider<RefreshScope> refreshScope) {
+			return new ZookeeperConfigChangeRebinder(rebinder, refreshScope);
+		}
+
+		private static ConfigWatcher createConfigWatcher(List<String> contexts,
+				CuratorFramework curator, Environment env) {
+			// bound rather than converted so that relaxed values like tree-cache work
+			ZookeeperConfigProperties properties = Binder.get(env)
+					.bind(ZookeeperConfigProperties.PREFIX, ZookeeperConfigProperties.class)
+					.orElseGet(ZookeeperConfigProperties::new);
+			return new ConfigWatcher(contexts, curator, properties);
 		}
 
 	}
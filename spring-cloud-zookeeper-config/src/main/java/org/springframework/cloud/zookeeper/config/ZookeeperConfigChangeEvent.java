@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Set;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+
+/**
+ * {@link EnvironmentChangeEvent} published by the {@link ConfigWatcher} once the keys
+ * changed in Zookeeper are in the environment. Its keys are exactly the properties that
+ * were added, updated or removed. Unlike an event published by a context refresh, it
+ * doesn't rebind every {@code @ConfigurationProperties} bean: the
+ * {@link ZookeeperConfigChangeRebinder} only rebinds and refreshes the beans bound to
+ * the changed keys.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperConfigChangeEvent extends EnvironmentChangeEvent {
+
+	/**
+	 * @param watcher the watcher that saw the changes
+	 * @param keys the changed keys
+	 */
+	public ZookeeperConfigChangeEvent(ConfigWatcher watcher, Set<String> keys) {
+		super(watcher, keys);
+	}
+
+	@Override
+	public ConfigWatcher getSource() {
+		return (ConfigWatcher) super.getSource();
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Rebinds the beans affected by a {@link ZookeeperConfigChangeEvent}. A
+ * {@code @ConfigurationProperties} bean is rebound, and a refresh scoped bean refreshed,
+ * only if its prefix or one of its {@code @Value} placeholders overlaps a changed key,
+ * that is equals it, or is an ancestor or a descendant of it. A refresh scoped bean
+ * whose keys can't be found, for instance because it is created by a factory method or
+ * uses an expression, is always refreshed.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperConfigChangeRebinder
+		implements ApplicationListener<ZookeeperConfigChangeEvent>, ApplicationContextAware {
+
+	private static final Log log = LogFactory.getLog(ZookeeperConfigChangeRebinder.class);
+
+	private static final String REFRESH_SCOPE = "refresh";
+
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^:}${]+)");
+
+	private final ObjectProvider<ConfigurationPropertiesRebinder> rebinder;
+
+	private final ObjectProvider<RefreshScope> refreshScope;
+
+	private ConfigurableApplicationContext applicationContext;
+
+	public ZookeeperConfigChangeRebinder(
+			ObjectProvider<ConfigurationPropertiesRebinder> rebinder,
+			ObjectProvider<RefreshScope> refreshScope) {
+		this.rebinder = rebinder;
+		this.refreshScope = refreshScope;
+	}
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext)
+			throws BeansException {
+		if (applicationContext instanceof ConfigurableApplicationContext) {
+			this.applicationContext = (ConfigurableApplicationContext) applicationContext;
+		}
+	}
+
+	@Override
+	public void onApplicationEvent(ZookeeperConfigChangeEvent event) {
+		if (this.applicationContext == null) {
+			return;
+		}
+		List<ConfigurationPropertyName> changed = new ArrayList<>();
+		for (String key : event.getKeys()) {
+			changed.add(ConfigurationPropertyName.adapt(key, '.'));
+		}
+		ConfigurableListableBeanFactory beanFactory = this.applicationContext
+				.getBeanFactory();
+		ConfigurationPropertiesRebinder rebinder = this.rebinder.getIfAvailable();
+		if (rebinder != null) {
+			for (String name : rebinder.getBeanNames()) {
+				ConfigurationProperties annotation = beanFactory.findAnnotationOnBean(name,
+						ConfigurationProperties.class);
+				if (overlaps(annotation != null
+						? Collections.singleton(annotation.prefix()) : null, changed)) {
+					if (log.isDebugEnabled()) {
+						log.debug("Rebinding " + name + " for changed keys " + event.getKeys());
+					}
+					rebinder.rebind(name);
+				}
+			}
+		}
+		RefreshScope refreshScope = this.refreshScope.getIfAvailable();
+		if (refreshScope != null) {
+			for (String name : beanFactory.getBeanDefinitionNames()) {
+				BeanDefinition definition = beanFactory.getBeanDefinition(name);
+				if (REFRESH_SCOPE.equals(definition.getScope())
+						&& overlaps(getKeys(beanFactory, name, definition), changed)) {
+					if (log.isDebugEnabled()) {
+						log.debug("Refreshing " + name + " for changed keys " + event.getKeys());
+					}
+					refreshScope.refresh(name);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the keys a refresh scoped bean is bound to, or {@code null} if they can't
+	 * be found
+	 */
+	private static Set<String> getKeys(ConfigurableListableBeanFactory beanFactory,
+			String name, BeanDefinition definition) {
+		ConfigurationProperties annotation = beanFactory.findAnnotationOnBean(name,
+				ConfigurationProperties.class);
+		if (annotation != null) {
+			return Collections.singleton(annotation.prefix());
+		}
+		Class<?> type = beanFactory.getType(name);
+		if (type == null || definition.getFactoryMethodName() != null) {
+			// the values of a factory method can come from anywhere
+			return null;
+		}
+		Set<String> keys = new LinkedHashSet<>();
+		List<AnnotatedElement> elements = new ArrayList<>();
+		Class<?> userClass = ClassUtils.getUserClass(type);
+		ReflectionUtils.doWithFields(userClass, elements::add);
+		ReflectionUtils.doWithMethods(userClass, method -> addWithParameters(method, elements));
+		for (Constructor<?> constructor : userClass.getDeclaredConstructors()) {
+			addWithParameters(constructor, elements);
+		}
+		for (AnnotatedElement element : elements) {
+			Value value = AnnotationUtils.getAnnotation(element, Value.class);
+			if (value == null) {
+				continue;
+			}
+			if (value.value().contains("#{")) {
+				return null;
+			}
+			Matcher matcher = PLACEHOLDER.matcher(value.value());
+			while (matcher.find()) {
+				keys.add(matcher.group(1).trim());
+			}
+		}
+		return keys.isEmpty() ? null : keys;
+	}
+
+	private static void addWithParameters(Executable executable,
+			List<AnnotatedElement> elements) {
+		elements.add(executable);
+		for (Parameter parameter : executable.getParameters()) {
+			elements.add(parameter);
+		}
+	}
+
+	private static boolean overlaps(Collection<String> keys,
+			List<ConfigurationPropertyName> changed) {
+		if (keys == null) {
+			return true;
+		}
+		for (String key : keys) {
+			ConfigurationPropertyName name = ConfigurationPropertyName.adapt(key, '.');
+			for (ConfigurationPropertyName changedName : changed) {
+				if (name.equals(changedName) || name.isAncestorOf(changedName)
+						|| changedName.isAncestorOf(name)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
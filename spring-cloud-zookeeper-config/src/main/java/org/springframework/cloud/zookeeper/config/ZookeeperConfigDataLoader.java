@@ -46,8 +46,11 @@ public class ZookeeperConfigDataLoader implements ConfigDataLoader<ZookeeperConf
 				// this can happen if certain conditions are met
 				return null;
 			}
-			ZookeeperPropertySource propertySource = new ZookeeperPropertySource(resource.getContext(),
-					curator);
+			// the contexts of the location are loaded concurrently by its preloader
+			ZookeeperPropertySourcePreloader preloader = resource.getPreloader();
+			ZookeeperPropertySource propertySource = preloader != null
+					? preloader.load(resource.getContext(), curator)
+					: new ZookeeperPropertySource(resource.getContext(), curator);
 			List<ZookeeperPropertySource> propertySources = Collections.singletonList(propertySource);
 
 			return new ConfigData(propertySources, source -> {
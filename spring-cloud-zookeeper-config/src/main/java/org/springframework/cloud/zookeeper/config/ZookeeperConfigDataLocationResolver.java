@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.logging.Log;
 
 import org.springframework.boot.bootstrap.BootstrapRegistry.InstanceSupplier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.config.ConfigDataLocation;
 import org.springframework.boot.context.config.ConfigDataLocationNotFoundException;
 import org.springframework.boot.context.config.ConfigDataLocationResolver;
@@ -38,6 +39,7 @@ import org.springframework.boot.logging.DeferredLogFactory;
 import org.springframework.cloud.zookeeper.CuratorFactory;
 import org.springframework.cloud.zookeeper.ZookeeperProperties;
 import org.springframework.cloud.zookeeper.config.ZookeeperPropertySources.Context;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
@@ -94,18 +96,31 @@ public class ZookeeperConfigDataLocationResolver implements ConfigDataLocationRe
 		List<Context> contexts = (locationUri == null || CollectionUtils.isEmpty(locationUri.getPathSegments()))
 				? sources.generateAutomaticContexts(profiles.getAccepted(), false) : getCustomContexts(locationUri);
 
+		ZookeeperConfigSnapshots snapshots = ZookeeperConfigSnapshots.of(properties);
+
 		// promote beans to context
 		context.getBootstrapContext().addCloseListener(event -> {
 			HashMap<String, Object> source = new HashMap<>();
 			source.put("spring.cloud.zookeeper.config.property-source-contexts", contexts.stream().map(Context::getPath).collect(Collectors.toList()));
 			MapPropertySource propertySource = new MapPropertySource("zookeeperConfigData", source);
-			event.getApplicationContext().getEnvironment().getPropertySources().addFirst(propertySource);
+			ConfigurableApplicationContext applicationContext = event.getApplicationContext();
+			applicationContext.getEnvironment().getPropertySources().addFirst(propertySource);
+			if (snapshots != null) {
+				// a refresh is only handled once the application is ready
+				applicationContext.addApplicationListener(applicationEvent -> {
+					if (applicationEvent instanceof ApplicationReadyEvent) {
+						snapshots.ready(applicationContext);
+					}
+				});
+			}
 		});
 
+		ZookeeperPropertySourcePreloader preloader = new ZookeeperPropertySourcePreloader(
+				contexts.stream().map(Context::getPath).collect(Collectors.toList()), sources, snapshots);
 		ArrayList<ZookeeperConfigDataResource> locations = new ArrayList<>();
 		contexts.forEach(propertySourceContext -> locations
 				.add(new ZookeeperConfigDataResource(propertySourceContext.getPath(), location.isOptional(), propertySourceContext
-						.getProfile())));
+						.getProfile(), preloader)));
 
 		return locations;
 	}
@@ -27,10 +27,18 @@ public class ZookeeperConfigDataResource extends ConfigDataResource {
 	private final boolean optional;
 	private final String profile;
 
+	private final ZookeeperPropertySourcePreloader preloader;
+
 	public ZookeeperConfigDataResource(String context, boolean optional, String profile) {
+		this(context, optional, profile, null);
+	}
+
+	ZookeeperConfigDataResource(String context, boolean optional, String profile,
+			ZookeeperPropertySourcePreloader preloader) {
 		this.context = context;
 		this.optional = optional;
 		this.profile = profile;
+		this.preloader = preloader;
 	}
 
 	@Deprecated
@@ -50,6 +58,10 @@ public class ZookeeperConfigDataResource extends ConfigDataResource {
 		return this.profile;
 	}
 
+	ZookeeperPropertySourcePreloader getPreloader() {
+		return this.preloader;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
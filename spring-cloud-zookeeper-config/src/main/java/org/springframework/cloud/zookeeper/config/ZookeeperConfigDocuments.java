@@ -0,0 +1,287 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Format;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Reads and writes configuration contexts kept as a single properties or YAML document.
+ * A document larger than a chunk is written to sequential {@code chunk-} children of its
+ * znode, which then only holds a manifest of the chunks with the length and the CRC-32
+ * of the document. The chunks are written before the manifest that points to them and
+ * the previous ones are deleted after it, so a reader always finds a complete document,
+ * and is checked against the manifest once read.
+ *
+ * @since 5.0.3
+ */
+public final class ZookeeperConfigDocuments {
+
+	/**
+	 * Default size of a chunk, well below the default 1MB limit of a znode.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 512 * 1024;
+
+	private static final Log log = LogFactory.getLog(ZookeeperConfigDocuments.class);
+
+	private static final String CHUNK_PREFIX = "chunk-";
+
+	// a text document never starts with a NUL
+	private static final int MAGIC = 0x005A4B44;
+
+	private static final byte VERSION = 1;
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private ZookeeperConfigDocuments() {
+		throw new AssertionError("Must not instantiate utility class.");
+	}
+
+	/**
+	 * Writes a document with chunks of the default size.
+	 * @param curator the Curator client
+	 * @param path the path of the document znode
+	 * @param document the document
+	 * @throws Exception if Zookeeper could not be written to
+	 * @see #write(CuratorFramework, String, byte[], int)
+	 */
+	public static void write(CuratorFramework curator, String path, byte[] document)
+			throws Exception {
+		write(curator, path, document, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Writes a document, split into chunks if it is larger than one.
+	 * @param curator the Curator client
+	 * @param path the path of the document znode
+	 * @param document the document
+	 * @param chunkSize the maximum size of a chunk
+	 * @throws Exception if Zookeeper could not be written to
+	 */
+	public static void write(CuratorFramework curator, String path, byte[] document,
+			int chunkSize) throws Exception {
+		List<String> previous = getChunks(curator, path);
+		if (document.length <= chunkSize) {
+			curator.create().orSetData().creatingParentContainersIfNeeded().forPath(path,
+					document);
+		}
+		else {
+			if (curator.checkExists().forPath(path) == null) {
+				curator.create().creatingParentContainersIfNeeded().forPath(path);
+			}
+			List<String> chunks = new ArrayList<>();
+			for (int offset = 0; offset < document.length; offset += chunkSize) {
+				byte[] chunk = Arrays.copyOfRange(document, offset,
+						Math.min(document.length, offset + chunkSize));
+				String created = curator.create()
+						.withMode(CreateMode.PERSISTENT_SEQUENTIAL)
+						.forPath(ZKPaths.makePath(path, CHUNK_PREFIX), chunk);
+				chunks.add(ZKPaths.getNodeFromPath(created));
+			}
+			curator.setData().forPath(path, manifest(document, chunks));
+		}
+		for (String chunk : previous) {
+			curator.delete().quietly().forPath(ZKPaths.makePath(path, chunk));
+		}
+	}
+
+	/**
+	 * Loads the properties of a context from its document.
+	 * @param context the context
+	 * @param curator the Curator client
+	 * @param format the format of the document
+	 * @param dataKey the child of the context holding the document, empty for the
+	 * context itself
+	 * @return the property source, empty if the document doesn't exist
+	 */
+	static ZookeeperPropertySource load(String context, CuratorFramework curator,
+			Format format, String dataKey) {
+		String contextPath = context.startsWith("/") ? context : "/" + context;
+		String path = StringUtils.hasLength(dataKey)
+				? ZKPaths.makePath(contextPath, dataKey) : contextPath;
+		try {
+			Stat stat = new Stat();
+			byte[] document = read(curator, path, stat);
+			Map<String, String> properties = document != null
+					? parse(path, document, format) : new LinkedHashMap<>();
+			return new ZookeeperPropertySource(context, curator, properties,
+					stat.getMzxid());
+		}
+		catch (Exception e) {
+			ReflectionUtils.rethrowRuntimeException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a document, joining its chunks.
+	 * @param curator the Curator client
+	 * @param path the path of the document znode
+	 * @param stat the stat of the document znode, once read
+	 * @return the document, or {@code null} if it doesn't exist
+	 * @throws Exception if the document could not be read or is corrupt
+	 */
+	static byte[] read(CuratorFramework curator, String path, Stat stat)
+			throws Exception {
+		for (int attempt = 1;; attempt++) {
+			byte[] data;
+			try {
+				data = curator.getData().storingStatIn(stat).forPath(path);
+			}
+			catch (KeeperException.NoNodeException e) {
+				return null;
+			}
+			if (!isManifest(data)) {
+				return data;
+			}
+			byte[] document = readChunks(curator, path, data);
+			if (document != null) {
+				return document;
+			}
+			if (attempt == MAX_ATTEMPTS) {
+				throw new IllegalStateException("Chunks of zookeeper config document "
+						+ path + " kept being replaced while reading them");
+			}
+			// rewritten while being read, the new manifest points to new chunks
+			if (log.isDebugEnabled()) {
+				log.debug("Chunks of zookeeper config document " + path
+						+ " replaced while reading them, reading again");
+			}
+		}
+	}
+
+	private static byte[] readChunks(CuratorFramework curator, String path,
+			byte[] manifest) throws Exception {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(manifest));
+		input.readInt();
+		if (input.readByte() != VERSION) {
+			throw new IllegalStateException(
+					"Unknown zookeeper config document manifest " + path);
+		}
+		int length = input.readInt();
+		int crc = input.readInt();
+		int count = input.readInt();
+		List<String> chunks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			chunks.add(input.readUTF());
+		}
+		ZookeeperPropertyTreeReader.Node node = ZookeeperPropertyTreeReader.read(curator,
+				path, chunks, ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY);
+		ByteArrayOutputStream document = new ByteArrayOutputStream(length);
+		for (ZookeeperPropertyTreeReader.Node chunk : node.nodes) {
+			if (chunk.stat == null) {
+				return null;
+			}
+			document.write(chunk.data != null ? chunk.data : new byte[0]);
+		}
+		byte[] bytes = document.toByteArray();
+		if (bytes.length != length || crc(bytes) != crc) {
+			throw new IllegalStateException(
+					"Corrupt zookeeper config document " + path + ", expected " + length
+							+ " bytes with a CRC-32 of " + Integer.toHexString(crc));
+		}
+		return bytes;
+	}
+
+	private static Map<String, String> parse(String path, byte[] document, Format format)
+			throws IOException {
+		PropertySourceLoader loader = format == Format.YAML
+				? new YamlPropertySourceLoader() : new PropertiesPropertySourceLoader();
+		Map<String, String> properties = new LinkedHashMap<>();
+		// the documents of a multi-document file override the ones before them
+		for (PropertySource<?> source : loader.load(path,
+				new ByteArrayResource(document))) {
+			EnumerablePropertySource<?> enumerable = (EnumerablePropertySource<?>) source;
+			for (String name : enumerable.getPropertyNames()) {
+				properties.put(name, String.valueOf(enumerable.getProperty(name)));
+			}
+		}
+		return properties;
+	}
+
+	private static List<String> getChunks(CuratorFramework curator, String path)
+			throws Exception {
+		try {
+			List<String> chunks = new ArrayList<>();
+			for (String child : curator.getChildren().forPath(path)) {
+				if (child.startsWith(CHUNK_PREFIX)) {
+					chunks.add(child);
+				}
+			}
+			return chunks;
+		}
+		catch (KeeperException.NoNodeException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	private static boolean isManifest(byte[] data) {
+		return data != null && data.length > 5 && ((data[0] & 0xFF) << 24
+				| (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF)) == MAGIC;
+	}
+
+	private static byte[] manifest(byte[] document, List<String> chunks)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(MAGIC);
+			output.writeByte(VERSION);
+			output.writeInt(document.length);
+			output.writeInt(crc(document));
+			output.writeInt(chunks.size());
+			for (String chunk : chunks) {
+				output.writeUTF(chunk);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static int crc(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return (int) crc.getValue();
+	}
+
+}
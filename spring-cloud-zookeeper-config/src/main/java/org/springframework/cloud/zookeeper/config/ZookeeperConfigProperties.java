@@ -16,7 +16,12 @@
 
 package org.springframework.cloud.zookeeper.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.util.Assert;
 
@@ -62,6 +67,52 @@ public class ZookeeperConfigProperties {
 	 */
 	private boolean failFast = true;
 
+	/**
+	 * Maximum number of znode reads kept in flight while loading a configuration context.
+	 */
+	private int loadConcurrency = ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY;
+
+	/**
+	 * Whether every configuration context is kept up to date by a tree cache, whose
+	 * changes are applied to the loaded properties as they arrive, instead of being
+	 * reloaded on refresh.
+	 */
+	private boolean live = false;
+
+	/**
+	 * Whether only the keys of every configuration context are read up front, the
+	 * value of a key being read the first time it is used and cached until it changes.
+	 */
+	private boolean lazy = false;
+
+	/**
+	 * Whether the configuration contexts located at bootstrap are exposed as a single
+	 * property source, each key having the value of the context with the highest
+	 * precedence. Not used with live or lazy contexts.
+	 */
+	private boolean merged = false;
+
+	/**
+	 * How the properties of a configuration context are kept in Zookeeper.
+	 */
+	private Format format = Format.KEY_VALUE;
+
+	/**
+	 * Child of a configuration context holding its document, when the format is a
+	 * document one. Empty for the context znode itself.
+	 */
+	private String dataKey = "";
+
+	/**
+	 * Watching of the configuration for changes.
+	 */
+	private Watcher watcher = new Watcher();
+
+	/**
+	 * Local snapshot of the configuration, used when Zookeeper is slow or unreachable.
+	 */
+	private Snapshot snapshot = new Snapshot();
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -112,6 +163,70 @@ public class ZookeeperConfigProperties {
 		this.failFast = failFast;
 	}
 
+	public int getLoadConcurrency() {
+		return this.loadConcurrency;
+	}
+
+	public void setLoadConcurrency(int loadConcurrency) {
+		this.loadConcurrency = loadConcurrency;
+	}
+
+	public boolean isLive() {
+		return this.live;
+	}
+
+	public void setLive(boolean live) {
+		this.live = live;
+	}
+
+	public boolean isLazy() {
+		return this.lazy;
+	}
+
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	public boolean isMerged() {
+		return this.merged;
+	}
+
+	public void setMerged(boolean merged) {
+		this.merged = merged;
+	}
+
+	public Format getFormat() {
+		return this.format;
+	}
+
+	public void setFormat(Format format) {
+		this.format = format;
+	}
+
+	public String getDataKey() {
+		return this.dataKey;
+	}
+
+	public void setDataKey(String dataKey) {
+		this.dataKey = dataKey;
+	}
+
+	public Watcher getWatcher() {
+		return this.watcher;
+	}
+
+	public void setWatcher(Watcher watcher) {
+		this.watcher = watcher;
+	}
+
+	public Snapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	public void setSnapshot(Snapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringCreator(this)
@@ -121,7 +236,271 @@ public class ZookeeperConfigProperties {
 				.append("defaultContext", defaultContext)
 				.append("profileSeparator", profileSeparator)
 				.append("failFast", failFast)
+				.append("loadConcurrency", loadConcurrency)
+				.append("live", live)
+				.append("lazy", lazy)
+				.append("merged", merged)
+				.append("format", format)
+				.append("dataKey", dataKey)
+				.append("watcher", watcher)
+				.append("snapshot", snapshot)
 				.toString();
 
 	}
+
+	/**
+	 * How the properties of a configuration context are kept in Zookeeper.
+	 */
+	public enum Format {
+
+		/**
+		 * One znode per property, the path below the context being the key.
+		 */
+		KEY_VALUE,
+
+		/**
+		 * A single znode holding a properties document.
+		 */
+		PROPERTIES,
+
+		/**
+		 * A single znode holding a YAML document.
+		 */
+		YAML
+
+	}
+
+	/**
+	 * Properties of the configuration watcher.
+	 */
+	public static class Watcher {
+
+		/**
+		 * Whether to refresh the configuration when it changes in Zookeeper.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * How the configuration contexts are watched. Persistent recursive watches
+		 * require Zookeeper 3.6+.
+		 */
+		private ZookeeperWatchMode mode = ZookeeperWatchMode.TREE_CACHE;
+
+		/**
+		 * How long the configuration has to stay unchanged before the changes seen so
+		 * far are patched into the loaded property sources with a single refresh. Zero
+		 * publishes a full refresh for every change, unless patching is enabled.
+		 */
+		private Duration quietPeriod = Duration.ZERO;
+
+		/**
+		 * Whether every change is patched into the loaded property sources and only the
+		 * beans bound to the changed keys are rebound, instead of publishing a full
+		 * refresh.
+		 */
+		private boolean patch = false;
+
+		/**
+		 * Whether to watch only the znode of each configuration context, as a version
+		 * marker bumped by the publishers along with the keys they change, and reload
+		 * the context when it changes.
+		 */
+		private boolean versionMarker = false;
+
+		/**
+		 * Window within which each instance delays applying the changes it sees, so that
+		 * the instances sharing a context don't all read it from Zookeeper at once. Zero
+		 * applies the changes without delay.
+		 */
+		private Duration staggerWindow = Duration.ZERO;
+
+		/**
+		 * How the delay of an instance within the stagger window is chosen.
+		 */
+		private Stagger stagger = Stagger.RANDOM;
+
+		/**
+		 * Maximum number of reads in flight per context while the contexts are reloaded
+		 * on a change, by the refresh it publishes or when it is patched.
+		 */
+		private int reloadConcurrency = ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY;
+
+		/**
+		 * Keys, along with the keys below them, whose changes are applied without the
+		 * stagger delay.
+		 */
+		private List<String> urgentKeys = new ArrayList<>();
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public ZookeeperWatchMode getMode() {
+			return this.mode;
+		}
+
+		public void setMode(ZookeeperWatchMode mode) {
+			this.mode = mode;
+		}
+
+		public Duration getQuietPeriod() {
+			return this.quietPeriod;
+		}
+
+		public void setQuietPeriod(Duration quietPeriod) {
+			this.quietPeriod = quietPeriod;
+		}
+
+		public boolean isPatch() {
+			return this.patch;
+		}
+
+		public void setPatch(boolean patch) {
+			this.patch = patch;
+		}
+
+		public boolean isVersionMarker() {
+			return this.versionMarker;
+		}
+
+		public void setVersionMarker(boolean versionMarker) {
+			this.versionMarker = versionMarker;
+		}
+
+		public Duration getStaggerWindow() {
+			return this.staggerWindow;
+		}
+
+		public void setStaggerWindow(Duration staggerWindow) {
+			this.staggerWindow = staggerWindow;
+		}
+
+		public Stagger getStagger() {
+			return this.stagger;
+		}
+
+		public void setStagger(Stagger stagger) {
+			this.stagger = stagger;
+		}
+
+		public int getReloadConcurrency() {
+			return this.reloadConcurrency;
+		}
+
+		public void setReloadConcurrency(int reloadConcurrency) {
+			this.reloadConcurrency = reloadConcurrency;
+		}
+
+		public List<String> getUrgentKeys() {
+			return this.urgentKeys;
+		}
+
+		public void setUrgentKeys(List<String> urgentKeys) {
+			this.urgentKeys = urgentKeys;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this)
+					.append("enabled", enabled)
+					.append("mode", mode)
+					.append("quietPeriod", quietPeriod)
+					.append("patch", patch)
+					.append("versionMarker", versionMarker)
+					.append("staggerWindow", staggerWindow)
+					.append("stagger", stagger)
+					.append("reloadConcurrency", reloadConcurrency)
+					.append("urgentKeys", urgentKeys)
+					.toString();
+		}
+
+		/**
+		 * How the delay of an instance within the stagger window is chosen.
+		 */
+		public enum Stagger {
+
+			/**
+			 * A random delay for every change.
+			 */
+			RANDOM,
+
+			/**
+			 * A delay derived from the hash of the instance id, the same for every
+			 * change, so that the instances are spread evenly over the window.
+			 */
+			INSTANCE
+
+		}
+
+	}
+
+	/**
+	 * Properties of the local configuration snapshot.
+	 */
+	public static class Snapshot {
+
+		/**
+		 * How the local snapshot of the configuration is used.
+		 */
+		private Mode mode = Mode.NONE;
+
+		/**
+		 * Directory in which a snapshot of every loaded context is written.
+		 */
+		private String directory = "zookeeper-config-snapshot";
+
+		public Mode getMode() {
+			return this.mode;
+		}
+
+		public void setMode(Mode mode) {
+			this.mode = mode;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this)
+					.append("mode", mode)
+					.append("directory", directory)
+					.toString();
+		}
+
+		/**
+		 * How the local snapshot of the configuration is used.
+		 */
+		public enum Mode {
+
+			/**
+			 * No snapshot is written or read.
+			 */
+			NONE,
+
+			/**
+			 * A snapshot is written after every load and only used when a context cannot
+			 * be loaded from Zookeeper.
+			 */
+			FALLBACK,
+
+			/**
+			 * A snapshot is written after every load and used right away at startup,
+			 * while the context is loaded from Zookeeper in the background. A refresh is
+			 * triggered once the application is ready if the configuration changed.
+			 */
+			PREFER
+
+		}
+
+	}
 }
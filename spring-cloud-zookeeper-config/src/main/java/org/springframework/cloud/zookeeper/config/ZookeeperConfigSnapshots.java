@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Snapshot.Mode;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Local snapshots of the loaded configuration contexts, one file per context holding its
+ * properties and the highest zxid seen while reading them. A snapshot is written after
+ * every successful load and every change the {@link ConfigWatcher} patches and,
+ * depending on the {@link Mode}, read back when a context cannot be loaded from
+ * Zookeeper or right away at startup.
+ *
+ * @since 5.0.3
+ */
+final class ZookeeperConfigSnapshots {
+
+	private static final Log log = LogFactory.getLog(ZookeeperConfigSnapshots.class);
+
+	private static final int MAGIC = 0x5A4B4353;
+
+	private static final byte VERSION = 1;
+
+	private final Path directory;
+
+	private final Mode mode;
+
+	private ApplicationEventPublisher publisher;
+
+	private boolean changed;
+
+	ZookeeperConfigSnapshots(Path directory, Mode mode) {
+		this.directory = directory;
+		this.mode = mode;
+	}
+
+	/**
+	 * @param properties the config properties
+	 * @return the snapshots to use, or {@code null} if they are disabled
+	 */
+	static ZookeeperConfigSnapshots of(ZookeeperConfigProperties properties) {
+		ZookeeperConfigProperties.Snapshot snapshot = properties.getSnapshot();
+		if (snapshot == null || snapshot.getMode() == null || snapshot.getMode() == Mode.NONE) {
+			return null;
+		}
+		Mode mode = snapshot.getMode();
+		if (properties.isLazy() && !properties.isLive()
+				&& properties.getFormat() == ZookeeperConfigProperties.Format.KEY_VALUE) {
+			// only the keys are loaded, there are no values to write
+			log.info("Zookeeper config snapshots are not used for lazy property sources");
+			return null;
+		}
+		if (mode == Mode.PREFER && properties.isLive()
+				&& properties.getFormat() == ZookeeperConfigProperties.Format.KEY_VALUE) {
+			// a snapshot served first would not be kept up to date
+			log.info("Zookeeper config snapshots are only used as a fallback for live property sources");
+			mode = Mode.FALLBACK;
+		}
+		return new ZookeeperConfigSnapshots(Paths.get(snapshot.getDirectory()), mode);
+	}
+
+	/**
+	 * Applies the snapshot of a context to its load from Zookeeper.
+	 * @param context the context being loaded
+	 * @param curator the Curator client
+	 * @param load the load from Zookeeper
+	 * @return the property source to use
+	 */
+	CompletableFuture<ZookeeperPropertySource> apply(String context, CuratorFramework curator,
+			CompletableFuture<ZookeeperPropertySource> load) {
+		if (this.mode == Mode.PREFER) {
+			ZookeeperPropertySource snapshot = read(context, curator);
+			if (snapshot != null) {
+				load.whenComplete((loaded, ex) -> reconcile(context, snapshot, loaded, ex));
+				return CompletableFuture.completedFuture(snapshot);
+			}
+		}
+		return load.handle((loaded, ex) -> {
+			if (ex == null) {
+				write(context, loaded);
+				return loaded;
+			}
+			ZookeeperPropertySource snapshot = read(context, curator);
+			if (snapshot == null) {
+				throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+			}
+			log.warn("Unable to load zookeeper config from " + context + ", using the snapshot from zxid "
+					+ snapshot.getZxid(), ex);
+			return snapshot;
+		});
+	}
+
+	private void reconcile(String context, ZookeeperPropertySource snapshot, ZookeeperPropertySource loaded,
+			Throwable ex) {
+		if (ex != null) {
+			log.warn("Unable to load zookeeper config from " + context + ", keeping the snapshot from zxid "
+					+ snapshot.getZxid(), ex);
+			return;
+		}
+		write(context, loaded);
+		if (!loaded.getProperties().equals(snapshot.getProperties())) {
+			if (log.isInfoEnabled()) {
+				log.info("Zookeeper config " + context + " changed since its snapshot");
+			}
+			snapshot.setProperties(loaded.getProperties(), loaded.getZxid());
+			changed();
+		}
+	}
+
+	private void changed() {
+		ApplicationEventPublisher publisher;
+		synchronized (this) {
+			publisher = this.publisher;
+			this.changed = publisher == null;
+		}
+		if (publisher != null) {
+			publishRefresh(publisher);
+		}
+	}
+
+	/**
+	 * Called once the application is ready, from then on a change found while
+	 * reconciling a snapshot triggers a refresh.
+	 * @param publisher the publisher of the application
+	 */
+	void ready(ApplicationEventPublisher publisher) {
+		boolean changed;
+		synchronized (this) {
+			this.publisher = publisher;
+			changed = this.changed;
+			this.changed = false;
+		}
+		if (changed) {
+			publishRefresh(publisher);
+		}
+	}
+
+	private void publishRefresh(ApplicationEventPublisher publisher) {
+		publisher.publishEvent(new RefreshEvent(this, null, "Zookeeper config changed since its snapshot"));
+	}
+
+	private ZookeeperPropertySource read(String context, CuratorFramework curator) {
+		Path file = file(context);
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+				log.warn("Ignoring unknown zookeeper config snapshot " + file);
+				return null;
+			}
+			long zxid = input.readLong();
+			int count = input.readInt();
+			Map<String, String> properties = new LinkedHashMap<>();
+			for (int i = 0; i < count; i++) {
+				properties.put(readString(input), readString(input));
+			}
+			return new ZookeeperPropertySource(context, curator, properties, zxid);
+		}
+		catch (NoSuchFileException e) {
+			return null;
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Unable to read zookeeper config snapshot " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the snapshot of a context, replacing the previous one.
+	 * @param context the context
+	 * @param loaded the property source holding the current properties of the context
+	 */
+	void write(String context, ZookeeperPropertySource loaded) {
+		Path file = file(context);
+		try {
+			if (loaded.getProperties().isEmpty()) {
+				// a missing context needs no snapshot
+				Files.deleteIfExists(file);
+				return;
+			}
+			Files.createDirectories(this.directory);
+			Path temp = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream output = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(temp)))) {
+					output.writeInt(MAGIC);
+					output.writeByte(VERSION);
+					output.writeLong(loaded.getZxid());
+					output.writeInt(loaded.getProperties().size());
+					for (Map.Entry<String, String> entry : loaded.getProperties().entrySet()) {
+						writeString(output, entry.getKey());
+						writeString(output, entry.getValue());
+					}
+				}
+				move(temp, file);
+			}
+			finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Unable to write zookeeper config snapshot " + file, e);
+		}
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		// readers never see a partially written snapshot
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private Path file(String context) {
+		String path = context.startsWith("/") ? context : "/" + context;
+		return this.directory.resolve(URLEncoder.encode(path, StandardCharsets.UTF_8) + ".snapshot");
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+}
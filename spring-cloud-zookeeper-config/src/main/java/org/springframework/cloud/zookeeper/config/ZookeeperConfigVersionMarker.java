@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Publishes changes to a configuration context watched through its version marker,
+ * the znode of the context itself. The changed keys are written and the marker is bumped
+ * in a single transaction, which only succeeds if the marker wasn't bumped in the
+ * meantime, so that the clients reload the context once per publication and always find
+ * all of its keys.
+ *
+ * @since 5.0.3
+ */
+public final class ZookeeperConfigVersionMarker {
+
+	private static final Log log = LogFactory.getLog(ZookeeperConfigVersionMarker.class);
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private ZookeeperConfigVersionMarker() {
+		throw new AssertionError("Must not instantiate utility class.");
+	}
+
+	/**
+	 * Writes keys to a context and bumps its version marker. Each key is written to the
+	 * znode of its path below the context, its dots separating the levels, the same way
+	 * the keys are read.
+	 * @param curator the Curator client
+	 * @param context the context
+	 * @param changes the values of the changed keys, {@code null} to remove a key but
+	 * not the keys below it
+	 * @return the version of the marker once bumped
+	 * @throws Exception if Zookeeper could not be written to, or the marker kept being
+	 * bumped by other publishers
+	 */
+	public static int publish(CuratorFramework curator, String context,
+			Map<String, String> changes) throws Exception {
+		String contextPath = context.startsWith("/") ? context : "/" + context;
+		for (int attempt = 1;; attempt++) {
+			try {
+				return tryPublish(curator, contextPath, changes);
+			}
+			catch (KeeperException.BadVersionException | KeeperException.NodeExistsException
+					| KeeperException.NoNodeException e) {
+				if (attempt == MAX_ATTEMPTS) {
+					throw e;
+				}
+				// published concurrently, the keys have to be checked again
+				if (log.isDebugEnabled()) {
+					log.debug("Zookeeper config context " + contextPath
+							+ " changed while publishing to it, publishing again");
+				}
+			}
+		}
+	}
+
+	private static int tryPublish(CuratorFramework curator, String contextPath,
+			Map<String, String> changes) throws Exception {
+		Stat marker = curator.checkExists().forPath(contextPath);
+		if (marker == null) {
+			try {
+				curator.create().creatingParentsIfNeeded().forPath(contextPath, new byte[0]);
+			}
+			catch (KeeperException.NodeExistsException e) {
+				// created by another publisher
+			}
+			marker = curator.checkExists().forPath(contextPath);
+		}
+		List<CuratorOp> operations = new ArrayList<>();
+		Set<String> created = new HashSet<>();
+		Set<String> written = new HashSet<>();
+		List<String> removed = new ArrayList<>();
+		for (Map.Entry<String, String> change : changes.entrySet()) {
+			String path = ZKPaths.makePath(contextPath, change.getKey().replace('.', '/'));
+			// an already created parent of another key is updated in the same transaction
+			boolean exists = created.contains(path)
+					|| curator.checkExists().forPath(path) != null;
+			if (change.getValue() == null) {
+				if (exists) {
+					removed.add(path);
+				}
+				continue;
+			}
+			byte[] value = change.getValue().getBytes(StandardCharsets.UTF_8);
+			written.add(path);
+			if (exists) {
+				operations.add(curator.transactionOp().setData().forPath(path, value));
+				continue;
+			}
+			createParents(curator, contextPath, path, created, operations);
+			operations.add(curator.transactionOp().create().forPath(path, value));
+			created.add(path);
+		}
+		remove(curator, contextPath, removed, written, created, operations);
+		operations.add(curator.transactionOp().setData().withVersion(marker.getVersion())
+				.forPath(contextPath, new byte[0]));
+		curator.transaction().forOperations(operations);
+		return marker.getVersion() + 1;
+	}
+
+	/**
+	 * Removes keys, the deepest first so that a znode is only deleted once its
+	 * children are. A key whose znode keeps children only loses its value, and the
+	 * parents left without data nor children are deleted as well, since they would
+	 * otherwise become keys with an empty value.
+	 */
+	private static void remove(CuratorFramework curator, String contextPath,
+			List<String> removed, Set<String> written, Set<String> created,
+			List<CuratorOp> operations) throws Exception {
+		removed.sort(Comparator.comparingInt(ZookeeperConfigVersionMarker::depth)
+				.reversed());
+		Set<String> deleted = new HashSet<>();
+		for (String path : removed) {
+			if (hasChildren(curator, path, created, deleted)) {
+				// the znode has no key of its own without data
+				operations.add(curator.transactionOp().setData().forPath(path, new byte[0]));
+				continue;
+			}
+			operations.add(curator.transactionOp().delete().forPath(path));
+			deleted.add(path);
+			String parent = ZKPaths.getPathAndNode(path).getPath();
+			while (!parent.equals(contextPath) && !removed.contains(parent)
+					&& !written.contains(parent) && !created.contains(parent)
+					&& !deleted.contains(parent)) {
+				byte[] data = curator.getData().forPath(parent);
+				if ((data != null && data.length > 0)
+						|| hasChildren(curator, parent, created, deleted)) {
+					break;
+				}
+				operations.add(curator.transactionOp().delete().forPath(parent));
+				deleted.add(parent);
+				parent = ZKPaths.getPathAndNode(parent).getPath();
+			}
+		}
+	}
+
+	/**
+	 * Whether a znode still has children once the transaction is committed.
+	 */
+	private static boolean hasChildren(CuratorFramework curator, String path,
+			Set<String> created, Set<String> deleted) throws Exception {
+		for (String child : curator.getChildren().forPath(path)) {
+			if (!deleted.contains(ZKPaths.makePath(path, child))) {
+				return true;
+			}
+		}
+		for (String createdPath : created) {
+			if (ZKPaths.getPathAndNode(createdPath).getPath().equals(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int depth(String path) {
+		return ZKPaths.split(path).size();
+	}
+
+	/**
+	 * Creates the missing znodes between the context and a new key, without data so
+	 * that they have no key of their own.
+	 */
+	private static void createParents(CuratorFramework curator, String contextPath,
+			String path, Set<String> created, List<CuratorOp> operations)
+			throws Exception {
+		String parent = ZKPaths.getPathAndNode(path).getPath();
+		if (parent.equals(contextPath) || created.contains(parent)
+				|| curator.checkExists().forPath(parent) != null) {
+			return;
+		}
+		createParents(curator, contextPath, parent, created, operations);
+		operations.add(curator.transactionOp().create().forPath(parent, new byte[0]));
+		created.add(parent);
+	}
+
+}
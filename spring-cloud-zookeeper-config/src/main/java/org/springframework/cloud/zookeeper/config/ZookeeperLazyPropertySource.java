@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link ZookeeperPropertySource} that only reads the structure of its context up front
+ * and the value of a key the first time it is asked for. The keys are found from the
+ * stat of every znode, which tells whether it has data or children, with a single read
+ * per znode and without transferring any value. A value read is cached until the watch
+ * set on its znode tells that it changed, so an application only reads, and holds, the
+ * keys it uses.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperLazyPropertySource extends ZookeeperPropertySource {
+
+	private volatile ZookeeperPropertyMap paths = ZookeeperPropertyMap.EMPTY;
+
+	private final Map<String, String> values = new ConcurrentHashMap<>();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * @param context the context to find the keys of
+	 * @param source the Curator client
+	 * @param loadConcurrency the maximum number of reads in flight while finding the
+	 * keys
+	 */
+	public ZookeeperLazyPropertySource(String context, CuratorFramework source,
+			int loadConcurrency) {
+		super(context, source, Collections.emptyMap(), 0);
+		findKeys(loadConcurrency);
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		String path = this.paths.get(name);
+		if (path == null) {
+			return null;
+		}
+		String value = this.values.get(name);
+		return value != null ? value : read(name, path);
+	}
+
+	@Override
+	public boolean containsProperty(String name) {
+		return this.paths.containsKey(name);
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return this.paths.names();
+	}
+
+	/**
+	 * @return the values read so far, by key
+	 */
+	@Override
+	Map<String, String> getProperties() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(this.values));
+	}
+
+	/**
+	 * Updates the keys of changed znodes.
+	 * @param changes the stat of every changed znode, {@code null} for a deleted one
+	 * @return the keys that were added, removed or may have a new value
+	 */
+	Set<String> update(Map<String, Stat> changes) {
+		long zxid = getZxid();
+		long latest = zxid;
+		Map<String, String> paths = new LinkedHashMap<>(this.paths);
+		Set<String> keys = new LinkedHashSet<>();
+		for (Map.Entry<String, Stat> change : changes.entrySet()) {
+			Stat stat = change.getValue();
+			String key = sanitizeKey(change.getKey());
+			if (stat != null && zxidOf(stat) <= zxid) {
+				// already seen when the keys were found
+				continue;
+			}
+			boolean wasKey = paths.remove(key) != null;
+			if (isKey(stat)) {
+				paths.put(key, change.getKey());
+				keys.add(key);
+				latest = Math.max(latest, zxidOf(stat));
+			}
+			else if (wasKey) {
+				keys.add(key);
+			}
+			invalidate(key);
+		}
+		this.paths = ZookeeperPropertyMap.of(paths);
+		setProperties(Collections.emptyMap(), latest);
+		return keys;
+	}
+
+	/**
+	 * Finds the keys of the context again, for instance once its version marker changed.
+	 * @param loadConcurrency the maximum number of reads in flight
+	 * @param zxid the zxid of the change, kept as seen even if no key has it
+	 * @return the keys that were added or removed, along with the keys whose value was
+	 * read, which may have changed
+	 */
+	Set<String> reload(int loadConcurrency, long zxid) {
+		Set<String> previous = this.paths.keySet();
+		Set<String> keys = new LinkedHashSet<>(this.values.keySet());
+		findKeys(loadConcurrency);
+		Set<String> current = this.paths.keySet();
+		for (String key : previous) {
+			if (!current.contains(key)) {
+				keys.add(key);
+			}
+		}
+		for (String key : current) {
+			if (!previous.contains(key)) {
+				keys.add(key);
+			}
+		}
+		this.invalidations.incrementAndGet();
+		this.values.clear();
+		setProperties(Collections.emptyMap(), Math.max(getZxid(), zxid));
+		return keys;
+	}
+
+	private void findKeys(int loadConcurrency) {
+		try {
+			List<String> children;
+			try {
+				children = getSource().getChildren().forPath(getContext());
+			}
+			catch (KeeperException.NoNodeException e) {
+				children = Collections.emptyList();
+			}
+			Map<String, String> paths = new LinkedHashMap<>();
+			long zxid = register(ZookeeperPropertyTreeReader.readStructure(getSource(),
+					getContext(), children, loadConcurrency), paths);
+			this.paths = ZookeeperPropertyMap.of(paths);
+			setProperties(Collections.emptyMap(), zxid);
+		}
+		catch (Exception e) {
+			ReflectionUtils.rethrowRuntimeException(e);
+		}
+	}
+
+	private long register(ZookeeperPropertyTreeReader.Node node,
+			Map<String, String> paths) {
+		// depth first, in the order of the children, like the loaded keys
+		long zxid = 0;
+		for (ZookeeperPropertyTreeReader.Node child : node.nodes) {
+			if (isKey(child.stat)) {
+				paths.put(sanitizeKey(child.path), child.path);
+			}
+			if (child.stat != null) {
+				zxid = Math.max(zxid, zxidOf(child.stat));
+			}
+			zxid = Math.max(zxid, register(child, paths));
+		}
+		return zxid;
+	}
+
+	private String read(String name, String path) {
+		long invalidations = this.invalidations.get();
+		try {
+			byte[] data = getSource().getData()
+					.usingWatcher((CuratorWatcher) event -> invalidate(name))
+					.forPath(path);
+			String value = getValue(data, false);
+			// not cached if it changed while being read
+			if (this.invalidations.get() == invalidations) {
+				this.values.put(name, value);
+			}
+			return value;
+		}
+		catch (KeeperException.NoNodeException e) {
+			return null;
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("Unable to read zookeeper config " + path, e);
+		}
+	}
+
+	private void invalidate(String key) {
+		this.invalidations.incrementAndGet();
+		this.values.remove(key);
+	}
+
+	/**
+	 * Whether a znode has a key: the same rule as {@link #getValue(byte[], boolean)},
+	 * from its stat.
+	 */
+	private static boolean isKey(Stat stat) {
+		return stat != null && (stat.getDataLength() > 0 || stat.getNumChildren() == 0);
+	}
+
+	private static long zxidOf(Stat stat) {
+		return Math.max(stat.getMzxid(), stat.getPzxid());
+	}
+
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.data.Stat;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link ZookeeperPropertySource} kept up to date by a {@link TreeCache} of its context.
+ * The properties are built from the first complete snapshot of the cache, then the
+ * changes are applied to a copy of them that replaces the current ones at once, so
+ * {@link #getProperty(String)} returns current values without reloading the context.
+ * The changes are applied on a thread of the property source, every change that arrived
+ * meanwhile in a single batch, so that a burst of changes doesn't copy the properties
+ * once per change.
+ * The tree is read once and the cache is the only other copy of it: the
+ * {@link ConfigWatcher} listens to the changes of the property source instead of
+ * caching the context again.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperLivePropertySource extends ZookeeperPropertySource
+		implements Closeable, TreeCacheListener {
+
+	/**
+	 * How long to wait for the first snapshot of the context.
+	 */
+	private static final long INITIALIZATION_TIMEOUT_SECONDS = 30;
+
+	private final TreeCache cache;
+
+	private final CountDownLatch initialized = new CountDownLatch(1);
+
+	private volatile Consumer<Set<String>> changeListener;
+
+	private final Object pendingLock = new Object();
+
+	private Set<String> pendingPaths;
+
+	private ExecutorService applier;
+
+	private boolean closed;
+
+	ZookeeperLivePropertySource(String context, CuratorFramework source) {
+		super(context, source, Collections.emptyMap(), 0);
+		this.cache = TreeCache.newBuilder(source, getContext()).build();
+		this.cache.getListenable().addListener(this);
+	}
+
+	/**
+	 * Creates the property source of a context once its tree cache holds the whole
+	 * context.
+	 * @param context the context to load the properties from
+	 * @param source the Curator client
+	 * @return the started property source
+	 */
+	public static ZookeeperLivePropertySource start(String context,
+			CuratorFramework source) {
+		ZookeeperLivePropertySource propertySource = new ZookeeperLivePropertySource(
+				context, source);
+		try {
+			propertySource.cache.start();
+			if (!propertySource.initialized.await(INITIALIZATION_TIMEOUT_SECONDS,
+					TimeUnit.SECONDS)) {
+				throw new IllegalStateException(
+						"Timed out loading zookeeper config " + propertySource.getContext());
+			}
+			return propertySource;
+		}
+		catch (Exception e) {
+			propertySource.close();
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			ReflectionUtils.rethrowRuntimeException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the listener told about the keys of every change, once applied.
+	 */
+	void setChangeListener(Consumer<Set<String>> changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	@Override
+	public void childEvent(CuratorFramework client, TreeCacheEvent event) {
+		switch (event.getType()) {
+		case INITIALIZED:
+			load();
+			this.initialized.countDown();
+			break;
+		case NODE_ADDED:
+		case NODE_UPDATED:
+		case NODE_REMOVED:
+			// the changes before the first snapshot are part of it
+			if (this.initialized.getCount() == 0) {
+				changed(event.getData().getPath());
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void load() {
+		Map<String, String> properties = new LinkedHashMap<>();
+		long zxid = register(getContext(), properties);
+		setProperties(Collections.unmodifiableMap(properties), zxid);
+	}
+
+	private long register(String path, Map<String, String> properties) {
+		// depth first, like the properties loaded from Zookeeper
+		Map<String, ChildData> children = this.cache.getCurrentChildren(path);
+		long zxid = 0;
+		if (children == null) {
+			return zxid;
+		}
+		for (String name : new TreeSet<>(children.keySet())) {
+			String childPath = ZKPaths.makePath(path, name);
+			ChildData child = children.get(name);
+			String value = getValue(child.getData(), hasChildren(childPath));
+			if (value != null) {
+				properties.put(sanitizeKey(childPath), value);
+			}
+			zxid = Math.max(zxid, Math.max(zxidOf(child.getStat()),
+					register(childPath, properties)));
+		}
+		return zxid;
+	}
+
+	private void changed(String path) {
+		if (path.equals(getContext())) {
+			// the context itself has no key, its descendants have their own events
+			return;
+		}
+		synchronized (this.pendingLock) {
+			if (this.closed) {
+				return;
+			}
+			if (this.pendingPaths == null) {
+				this.pendingPaths = new LinkedHashSet<>();
+				applier().execute(this::applyPending);
+			}
+			this.pendingPaths.add(path);
+		}
+	}
+
+	/**
+	 * Applies the changes that arrived since the last batch with a single copy of the
+	 * properties.
+	 */
+	private void applyPending() {
+		Set<String> paths;
+		synchronized (this.pendingLock) {
+			paths = this.pendingPaths;
+			this.pendingPaths = null;
+			if (paths == null || this.closed) {
+				return;
+			}
+		}
+		Map<String, String> properties = new LinkedHashMap<>(getProperties());
+		Set<String> keys = new LinkedHashSet<>();
+		long zxid = getZxid();
+		for (String path : paths) {
+			zxid = Math.max(zxid, update(path, properties, keys));
+			String parent = ZKPaths.getPathAndNode(path).getPath();
+			if (!parent.equals(getContext())) {
+				// the parent's own key depends on whether it has children
+				zxid = Math.max(zxid, update(parent, properties, keys));
+			}
+		}
+		if (keys.isEmpty()) {
+			return;
+		}
+		setProperties(Collections.unmodifiableMap(properties), zxid);
+		Consumer<Set<String>> changeListener = this.changeListener;
+		if (changeListener != null) {
+			changeListener.accept(keys);
+		}
+	}
+
+	private long update(String path, Map<String, String> properties, Set<String> keys) {
+		ChildData data = this.cache.getCurrentData(path);
+		String key = sanitizeKey(path);
+		String value = data != null ? getValue(data.getData(), hasChildren(path)) : null;
+		String previous = value != null ? properties.put(key, value)
+				: properties.remove(key);
+		if (value == null ? previous != null : !value.equals(previous)) {
+			keys.add(key);
+		}
+		return data != null ? zxidOf(data.getStat()) : 0;
+	}
+
+	private boolean hasChildren(String path) {
+		Map<String, ChildData> children = this.cache.getCurrentChildren(path);
+		return children != null && !children.isEmpty();
+	}
+
+	private static long zxidOf(Stat stat) {
+		return stat != null ? Math.max(stat.getMzxid(), stat.getPzxid()) : 0;
+	}
+
+	// must hold the pending lock
+	private ExecutorService applier() {
+		if (this.applier == null) {
+			this.applier = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "zookeeper-config-live");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.applier;
+	}
+
+	@Override
+	public void close() {
+		this.changeListener = null;
+		synchronized (this.pendingLock) {
+			this.closed = true;
+			this.pendingPaths = null;
+			if (this.applier != null) {
+				this.applier.shutdownNow();
+				this.applier = null;
+			}
+		}
+		this.cache.close();
+	}
+
+}
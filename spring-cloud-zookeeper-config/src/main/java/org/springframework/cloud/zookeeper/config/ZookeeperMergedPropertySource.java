@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginLookup;
+import org.springframework.boot.origin.PropertySourceOrigin;
+import org.springframework.core.env.EnumerablePropertySource;
+
+/**
+ * Single property source holding the properties of several contexts, each key having
+ * the value of the context with the highest precedence, so that a property is found with
+ * one lookup instead of one per context. The merged properties are built from the
+ * property sources of the contexts when created, that is on every refresh, and again
+ * when the {@link ConfigWatcher} patches changes into them. The origin of a key is the
+ * context its value comes from.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperMergedPropertySource extends EnumerablePropertySource<CuratorFramework>
+		implements OriginLookup<String> {
+
+	private final List<ZookeeperPropertySource> propertySources;
+
+	private volatile Merged merged;
+
+	/**
+	 * @param name the name of the property source
+	 * @param source the Curator client
+	 * @param propertySources the property sources of the contexts, the one with the
+	 * highest precedence first
+	 */
+	public ZookeeperMergedPropertySource(String name, CuratorFramework source,
+			List<ZookeeperPropertySource> propertySources) {
+		super(name, source);
+		this.propertySources = Collections.unmodifiableList(new ArrayList<>(propertySources));
+		rebuild();
+	}
+
+	/**
+	 * @return the property sources of the contexts, the one with the highest precedence
+	 * first
+	 */
+	public List<ZookeeperPropertySource> getPropertySources() {
+		return this.propertySources;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return this.merged.properties.get(name);
+	}
+
+	@Override
+	public boolean containsProperty(String name) {
+		return this.merged.properties.containsKey(name);
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return this.merged.properties.names();
+	}
+
+	@Override
+	public Origin getOrigin(String key) {
+		String context = this.merged.contexts.get(key);
+		if (context == null) {
+			return null;
+		}
+		for (ZookeeperPropertySource propertySource : this.propertySources) {
+			if (propertySource.getName().equals(context)) {
+				return new PropertySourceOrigin(propertySource, key);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Merges the current properties of the contexts again.
+	 */
+	void rebuild() {
+		Map<String, String> properties = new LinkedHashMap<>();
+		Map<String, String> contexts = new LinkedHashMap<>();
+		for (ZookeeperPropertySource propertySource : this.propertySources) {
+			for (Map.Entry<String, String> entry : propertySource.getProperties()
+					.entrySet()) {
+				if (properties.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+					contexts.put(entry.getKey(), propertySource.getName());
+				}
+			}
+		}
+		this.merged = new Merged(ZookeeperPropertyMap.of(properties),
+				ZookeeperPropertyMap.of(contexts));
+	}
+
+	/**
+	 * The merged properties along with the context of every key, replaced together.
+	 */
+	private static final class Merged {
+
+		private final ZookeeperPropertyMap properties;
+
+		private final ZookeeperPropertyMap contexts;
+
+		private Merged(ZookeeperPropertyMap properties, ZookeeperPropertyMap contexts) {
+			this.properties = properties;
+			this.contexts = contexts;
+		}
+
+	}
+
+}
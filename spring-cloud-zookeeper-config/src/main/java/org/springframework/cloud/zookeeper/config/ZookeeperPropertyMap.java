@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map of the properties of a context, in the order they were loaded. The keys
+ * and values are held in two arrays, indexed by an open addressing table of ints, instead
+ * of an entry object per property, and equal values share a single instance. The names
+ * of a property source are a copy of the array of the keys, made once per map and handed
+ * out on every call, so that a caller modifying them can't break the lookups.
+ *
+ * @since 5.0.3
+ */
+final class ZookeeperPropertyMap extends AbstractMap<String, String> {
+
+	static final ZookeeperPropertyMap EMPTY = new ZookeeperPropertyMap(new String[0],
+			new String[0]);
+
+	private final String[] keys;
+
+	private final String[] values;
+
+	private final String[] names;
+
+	/**
+	 * The index of the entry of every slot plus one, zero for an empty slot.
+	 */
+	private final int[] slots;
+
+	private Set<Map.Entry<String, String>> entrySet;
+
+	private ZookeeperPropertyMap(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+		this.names = keys.clone();
+		int capacity = 2;
+		while (capacity < keys.length * 2) {
+			capacity <<= 1;
+		}
+		this.slots = new int[capacity];
+		for (int i = 0; i < keys.length; i++) {
+			int slot = slotOf(keys[i]);
+			while (this.slots[slot] != 0) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			this.slots[slot] = i + 1;
+		}
+	}
+
+	/**
+	 * @param properties the properties, in their order
+	 * @return the properties as a compact map, the given one if already compact
+	 */
+	static ZookeeperPropertyMap of(Map<String, String> properties) {
+		if (properties instanceof ZookeeperPropertyMap) {
+			return (ZookeeperPropertyMap) properties;
+		}
+		if (properties.isEmpty()) {
+			return EMPTY;
+		}
+		String[] keys = new String[properties.size()];
+		String[] values = new String[keys.length];
+		Map<String, String> shared = new HashMap<>();
+		int i = 0;
+		for (Map.Entry<String, String> entry : properties.entrySet()) {
+			String value = entry.getValue();
+			String previous = shared.putIfAbsent(value, value);
+			keys[i] = entry.getKey();
+			values[i] = previous != null ? previous : value;
+			i++;
+		}
+		return new ZookeeperPropertyMap(keys, values);
+	}
+
+	/**
+	 * @return the names of the properties, in their order, the same array on every call
+	 * and not to be modified
+	 */
+	String[] names() {
+		return this.names;
+	}
+
+	@Override
+	public String get(Object key) {
+		int index = indexOf(key);
+		return index >= 0 ? this.values[index] : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return this.keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.keys.length == 0;
+	}
+
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		int mask = this.slots.length - 1;
+		for (int slot = slotOf((String) key); this.slots[slot] != 0; slot = (slot + 1) & mask) {
+			int index = this.slots[slot] - 1;
+			if (this.keys[index].equals(key)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private int slotOf(String key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & (this.slots.length - 1);
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+		@Override
+		public Iterator<Map.Entry<String, String>> iterator() {
+			return new Iterator<Map.Entry<String, String>>() {
+
+				private int index;
+
+				@Override
+				public boolean hasNext() {
+					return this.index < keys.length;
+				}
+
+				@Override
+				public Map.Entry<String, String> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int index = this.index++;
+					return new SimpleImmutableEntry<>(keys[index], values[index]);
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+	}
+
+}
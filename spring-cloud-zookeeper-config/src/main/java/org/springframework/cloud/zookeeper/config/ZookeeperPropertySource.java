@@ -16,11 +16,10 @@
 
 package org.springframework.cloud.zookeeper.config;
 
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,7 +30,9 @@ import org.springframework.util.ReflectionUtils;
 
 /**
  * {@link org.springframework.core.env.PropertySource} that stores properties from
- * Zookeeper inside a map. Properties are loaded upon class initialization.
+ * Zookeeper inside a map. Properties are loaded upon class initialization, reading the
+ * znodes below the context level by level with pipelined background reads, and then kept
+ * in a compact immutable map whose keys also serve as the property names.
  *
  * @author Spencer Gibb
  * @since 1.0.0
@@ -40,11 +41,51 @@ public class ZookeeperPropertySource extends AbstractZookeeperPropertySource {
 
 	private static final Log log = LogFactory.getLog(ZookeeperPropertySource.class);
 
-	private Map<String, String> properties = new LinkedHashMap<>();
+	/**
+	 * Default maximum number of reads in flight while loading the properties.
+	 */
+	public static final int DEFAULT_LOAD_CONCURRENCY = 32;
+
+	private volatile ZookeeperPropertyMap properties = ZookeeperPropertyMap.EMPTY;
+
+	private volatile long zxid;
 
 	public ZookeeperPropertySource(String context, CuratorFramework source) {
+		this(context, source, DEFAULT_LOAD_CONCURRENCY);
+	}
+
+	/**
+	 * @param context the context to load the properties from
+	 * @param source the Curator client
+	 * @param loadConcurrency the maximum number of reads in flight while loading the
+	 * properties
+	 * @since 5.0.3
+	 */
+	public ZookeeperPropertySource(String context, CuratorFramework source,
+			int loadConcurrency) {
+		this(context, source, loadConcurrency, null);
+	}
+
+	/**
+	 * @param contextChildren the already listed children of the context, empty if it
+	 * doesn't exist, or {@code null} to list them
+	 */
+	ZookeeperPropertySource(String context, CuratorFramework source, int loadConcurrency,
+			List<String> contextChildren) {
 		super(context, source);
-		findProperties(this.getContext(), null);
+		findProperties(this.getContext(), loadConcurrency, contextChildren);
+	}
+
+	/**
+	 * Creates a property source from properties loaded earlier.
+	 * @param properties the properties, in the order they were loaded
+	 * @param zxid the highest zxid seen while loading them
+	 */
+	ZookeeperPropertySource(String context, CuratorFramework source,
+			Map<String, String> properties, long zxid) {
+		super(context, source);
+		this.properties = ZookeeperPropertyMap.of(properties);
+		this.zxid = zxid;
 	}
 
 	@Override
@@ -52,32 +93,33 @@ public class ZookeeperPropertySource extends AbstractZookeeperPropertySource {
 		return this.properties.get(name);
 	}
 
-	private byte[] getPropertyBytes(String fullPath) {
-		try {
-			byte[] bytes = null;
-			try {
-				bytes = this.getSource().getData().forPath(fullPath);
-			}
-			catch (KeeperException e) {
-				if (e.code() != KeeperException.Code.NONODE) { // not found
-					throw e;
-				}
-			}
-			return bytes;
-		}
-		catch (Exception exception) {
-			ReflectionUtils.rethrowRuntimeException(exception);
-		}
-		return null;
+	Map<String, String> getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * Replaces all the properties at once, for properties reloaded in the background.
+	 */
+	void setProperties(Map<String, String> properties, long zxid) {
+		this.properties = ZookeeperPropertyMap.of(properties);
+		this.zxid = zxid;
+	}
+
+	/**
+	 * @return the highest zxid seen while loading the properties, that is the
+	 * transaction that last created or changed one of the read znodes
+	 */
+	long getZxid() {
+		return this.zxid;
 	}
 
 	@Override
 	public String[] getPropertyNames() {
-		Set<String> strings = this.properties.keySet();
-		return strings.toArray(new String[strings.size()]);
+		// shared rather than copied, binding asks for the names over and over
+		return this.properties.names();
 	}
 
-	private void findProperties(String path, List<String> children) {
+	private void findProperties(String path, int concurrency, List<String> children) {
 		try {
 			log.trace("entering findProperties for path: " + path);
 			if (children == null) {
@@ -86,24 +128,10 @@ public class ZookeeperPropertySource extends AbstractZookeeperPropertySource {
 			if (children == null || children.isEmpty()) {
 				return;
 			}
-			for (String child : children) {
-				String childPath = path + "/" + child;
-				List<String> childPathChildren = getChildren(childPath);
-
-				byte[] bytes = getPropertyBytes(childPath);
-				if (bytes == null || bytes.length == 0) {
-					if (childPathChildren == null || childPathChildren.isEmpty()) {
-						registerKeyValue(childPath, "");
-					}
-				}
-				else {
-					registerKeyValue(childPath,
-							new String(bytes, Charset.forName("UTF-8")));
-				}
-
-				// Check children even if we have found a value for the current znode
-				findProperties(childPath, childPathChildren);
-			}
+			Map<String, String> properties = new LinkedHashMap<>();
+			registerProperties(ZookeeperPropertyTreeReader.read(this.getSource(), path,
+					children, concurrency), properties);
+			this.properties = ZookeeperPropertyMap.of(properties);
 			log.trace("leaving findProperties for path: " + path);
 		}
 		catch (Exception exception) {
@@ -111,9 +139,38 @@ public class ZookeeperPropertySource extends AbstractZookeeperPropertySource {
 		}
 	}
 
-	private void registerKeyValue(String path, String value) {
-		String key = sanitizeKey(path);
-		this.properties.put(key, value);
+	private void registerProperties(ZookeeperPropertyTreeReader.Node node,
+			Map<String, String> properties) {
+		// depth first, in the order of the children, as the keys were always registered
+		for (ZookeeperPropertyTreeReader.Node child : node.nodes) {
+			String value = getValue(child.data,
+					child.children != null && !child.children.isEmpty());
+			if (value != null) {
+				properties.put(sanitizeKey(child.path), value);
+			}
+
+			if (child.stat != null) {
+				this.zxid = Math.max(this.zxid,
+						Math.max(child.stat.getMzxid(), child.stat.getPzxid()));
+			}
+
+			// Check children even if we have found a value for the current znode
+			registerProperties(child, properties);
+		}
+	}
+
+	/**
+	 * The value of the key of a znode: its data or, without data, an empty value unless
+	 * it has children.
+	 * @param data the data of the znode
+	 * @param hasChildren whether the znode has children
+	 * @return the value, or {@code null} if the znode has no key
+	 */
+	static String getValue(byte[] data, boolean hasChildren) {
+		if (data != null && data.length > 0) {
+			return new String(data, StandardCharsets.UTF_8);
+		}
+		return hasChildren ? null : "";
 	}
 
 	private List<String> getChildren(String path) throws Exception {
@@ -24,7 +24,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.curator.framework.CuratorFramework;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
 import org.springframework.core.env.CompositePropertySource;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
@@ -56,11 +60,16 @@ import org.springframework.util.Assert;
  * applications using zookeeper for configuration. Properties in the
  * {@code config/testApp} namespace are only available to the instances of the service
  * named "testApp".
+ * <p>
+ * The contexts share a single store of {@link ZookeeperConfigSnapshots snapshots}, which
+ * publishes a refresh for the changes found after serving a snapshot once the
+ * application is ready.
  *
  * @author Spencer Gibb
  * @since 1.0.0
  */
-public class ZookeeperPropertySourceLocator implements PropertySourceLocator {
+public class ZookeeperPropertySourceLocator implements PropertySourceLocator,
+		ApplicationContextAware, ApplicationListener<ApplicationReadyEvent> {
 
 	private ZookeeperConfigProperties properties;
 
@@ -68,6 +77,10 @@ public class ZookeeperPropertySourceLocator implements PropertySourceLocator {
 
 	private List<String> contexts;
 
+	private final ZookeeperConfigSnapshots snapshots;
+
+	private ApplicationContext applicationContext;
+
 	private static final Log log = LogFactory
 			.getLog(ZookeeperPropertySourceLocator.class);
 
@@ -76,6 +89,7 @@ public class ZookeeperPropertySourceLocator implements PropertySourceLocator {
 		this.curator = curator;
 		Assert.hasText(properties.getName(), ZookeeperConfigProperties.PREFIX + ".name must not be empty");
 		this.properties = properties;
+		this.snapshots = ZookeeperConfigSnapshots.of(properties);
 	}
 
 	public List<String> getContexts() {
@@ -92,10 +106,18 @@ public class ZookeeperPropertySourceLocator implements PropertySourceLocator {
 			ZookeeperPropertySources sources = new ZookeeperPropertySources(properties, log);
 			this.contexts = sources.getAutomaticContexts(profiles);
 
-			CompositePropertySource composite = new CompositePropertySource("zookeeper");
+			// loaded concurrently, in the order of precedence of the contexts
+			List<ZookeeperPropertySource> propertySources = sources.createPropertySources(this.contexts, true,
+					this.curator, this.snapshots);
+			if (this.properties.isMerged()) {
+				if (!this.properties.isLive() && !this.properties.isLazy()) {
+					return new ZookeeperMergedPropertySource("zookeeper", this.curator, propertySources);
+				}
+				log.warn(ZookeeperConfigProperties.PREFIX + ".merged is ignored, live and lazy contexts are never merged");
+			}
 
-			for (String propertySourceContext : this.contexts) {
-				PropertySource<CuratorFramework> propertySource = sources.createPropertySource(propertySourceContext, true, this.curator);
+			CompositePropertySource composite = new CompositePropertySource("zookeeper");
+			for (PropertySource<CuratorFramework> propertySource : propertySources) {
 				composite.addPropertySource(propertySource);
 			}
 
@@ -104,6 +126,20 @@ public class ZookeeperPropertySourceLocator implements PropertySourceLocator {
 		return null;
 	}
 
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		// the bootstrap context is ready before the application is, and a refresh is
+		// only handled by the application
+		if (this.snapshots != null && event.getApplicationContext() != this.applicationContext) {
+			this.snapshots.ready(event.getApplicationContext());
+		}
+	}
+
 	@PreDestroy
 	public void destroy() {
 	}
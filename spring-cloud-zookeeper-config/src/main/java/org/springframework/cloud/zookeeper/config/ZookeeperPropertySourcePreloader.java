@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+
+/**
+ * Loads all the contexts resolved from a config data location concurrently. The
+ * {@link ZookeeperConfigDataLoader} is asked for one resource after another, so the
+ * first request starts loading every context and each later one only waits for its
+ * own.
+ *
+ * @since 5.0.3
+ */
+final class ZookeeperPropertySourcePreloader {
+
+	private final List<String> contexts;
+
+	private final ZookeeperPropertySources sources;
+
+	private final ZookeeperConfigProperties properties;
+
+	private final ZookeeperConfigSnapshots snapshots;
+
+	private Map<String, CompletableFuture<ZookeeperPropertySource>> loads;
+
+	ZookeeperPropertySourcePreloader(List<String> contexts, int loadConcurrency) {
+		this(contexts, new ZookeeperPropertySources(properties(loadConcurrency),
+				LogFactory.getLog(ZookeeperPropertySourcePreloader.class)), null);
+	}
+
+	ZookeeperPropertySourcePreloader(List<String> contexts,
+			ZookeeperPropertySources sources, ZookeeperConfigSnapshots snapshots) {
+		this.contexts = contexts;
+		this.sources = sources;
+		this.properties = sources.getProperties();
+		this.snapshots = snapshots;
+	}
+
+	private static ZookeeperConfigProperties properties(int loadConcurrency) {
+		ZookeeperConfigProperties properties = new ZookeeperConfigProperties();
+		properties.setLoadConcurrency(loadConcurrency);
+		return properties;
+	}
+
+	/**
+	 * Returns the property source of the given context, starting to load all the
+	 * contexts if none is loading yet.
+	 * @param context the context to load
+	 * @param curator the Curator client
+	 * @return the property source
+	 */
+	ZookeeperPropertySource load(String context, CuratorFramework curator) {
+		CompletableFuture<ZookeeperPropertySource> load;
+		synchronized (this) {
+			if (this.loads == null) {
+				this.loads = this.sources.loadAsync(this.contexts, curator, this.snapshots);
+			}
+			// not kept once handed out, a later request loads the context again
+			load = this.loads.remove(context);
+		}
+		if (load == null) {
+			return ZookeeperPropertySources.load(context, curator, this.properties);
+		}
+		return ZookeeperPropertySources.join(load);
+	}
+
+}
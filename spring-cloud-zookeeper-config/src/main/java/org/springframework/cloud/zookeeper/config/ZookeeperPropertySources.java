@@ -18,15 +18,35 @@ package org.springframework.cloud.zookeeper.config;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
+import org.apache.curator.CuratorZookeeperClient;
+import org.apache.curator.RetryLoop;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 
 import org.springframework.core.style.ToStringCreator;
 
 public class ZookeeperPropertySources {
+
+	// the reads are asynchronous, each thread only waits for its context to be read
+	private static final int MAX_LOADER_THREADS = 4;
+
+	// set by the config watcher while its refresh reloads the contexts on the same thread
+	private static final ThreadLocal<Integer> RELOAD_CONCURRENCY = new ThreadLocal<>();
+
 	private final ZookeeperConfigProperties properties;
 	private final Log log;
 
@@ -35,6 +55,10 @@ public class ZookeeperPropertySources {
 		this.log = log;
 	}
 
+	ZookeeperConfigProperties getProperties() {
+		return this.properties;
+	}
+
 	public List<String> getAutomaticContexts(List<String> profiles) {
 		return getAutomaticContexts(profiles, true);
 	}
@@ -75,19 +99,222 @@ public class ZookeeperPropertySources {
 
 	public ZookeeperPropertySource createPropertySource(String context, boolean optional, CuratorFramework curator) {
 		try {
-			return new ZookeeperPropertySource(context, curator);
+			return load(context, curator, this.properties);
 			// TODO: howto call close when /refresh
 		}
 		catch (Exception e) {
-			if (this.properties.isFailFast() || !optional) {
-				throw new ZookeeperPropertySourceNotFoundException(e);
+			return loadFailed(context, optional, e);
+		}
+	}
+
+	/**
+	 * Loads the given contexts concurrently, each one as
+	 * {@link #createPropertySource(String, boolean, CuratorFramework)} would.
+	 * @param contexts the contexts to load
+	 * @param optional whether the contexts are optional
+	 * @param curator the Curator client
+	 * @return the property sources, in the order of the contexts, without the optional
+	 * contexts that failed to load
+	 * @since 5.0.3
+	 */
+	public List<ZookeeperPropertySource> createPropertySources(List<String> contexts, boolean optional,
+			CuratorFramework curator) {
+		return createPropertySources(contexts, optional, curator, ZookeeperConfigSnapshots.of(this.properties));
+	}
+
+	List<ZookeeperPropertySource> createPropertySources(List<String> contexts, boolean optional,
+			CuratorFramework curator, ZookeeperConfigSnapshots snapshots) {
+		Map<String, CompletableFuture<ZookeeperPropertySource>> loads = loadAsync(contexts, curator, snapshots);
+		List<ZookeeperPropertySource> propertySources = new ArrayList<>(contexts.size());
+		for (String context : contexts) {
+			ZookeeperPropertySource propertySource;
+			try {
+				propertySource = join(loads.get(context));
 			}
-			else {
-				log.warn("Unable to load zookeeper config from " + context, e);
+			catch (Exception e) {
+				propertySource = loadFailed(context, optional, e);
+			}
+			if (propertySource != null) {
+				propertySources.add(propertySource);
 			}
 		}
+		return propertySources;
+	}
+
+	private ZookeeperPropertySource loadFailed(String context, boolean optional, Exception e) {
+		if (this.properties.isFailFast() || !optional) {
+			throw new ZookeeperPropertySourceNotFoundException(e);
+		}
+		else {
+			log.warn("Unable to load zookeeper config from " + context, e);
+		}
 		return null;
 	}
+
+	/**
+	 * Loads a context on the calling thread, as a document, with a
+	 * {@link ZookeeperLivePropertySource}, a {@link ZookeeperLazyPropertySource} or one
+	 * znode per key, depending on the properties.
+	 */
+	static ZookeeperPropertySource load(String context, CuratorFramework curator,
+			ZookeeperConfigProperties properties) {
+		return load(context, curator, properties, loadConcurrency(properties));
+	}
+
+	private static ZookeeperPropertySource load(String context, CuratorFramework curator,
+			ZookeeperConfigProperties properties, int loadConcurrency) {
+		if (properties.getFormat() != ZookeeperConfigProperties.Format.KEY_VALUE) {
+			return ZookeeperConfigDocuments.load(context, curator, properties.getFormat(), properties.getDataKey());
+		}
+		if (properties.isLive()) {
+			return ZookeeperLivePropertySource.start(context, curator);
+		}
+		if (properties.isLazy()) {
+			return new ZookeeperLazyPropertySource(context, curator, loadConcurrency);
+		}
+		return new ZookeeperPropertySource(context, curator, loadConcurrency);
+	}
+
+	/**
+	 * Runs a reload of the contexts, such as the refresh a change publishes, limiting
+	 * the reads of the contexts it loads on the calling thread to the given concurrency
+	 * instead of the load concurrency.
+	 * @param reloadConcurrency the maximum number of reads in flight per context
+	 * @param reload the reload to run
+	 */
+	static void reloading(int reloadConcurrency, Runnable reload) {
+		Integer previous = RELOAD_CONCURRENCY.get();
+		RELOAD_CONCURRENCY.set(reloadConcurrency);
+		try {
+			reload.run();
+		}
+		finally {
+			if (previous != null) {
+				RELOAD_CONCURRENCY.set(previous);
+			}
+			else {
+				RELOAD_CONCURRENCY.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum number of reads in flight per context loaded on the calling
+	 * thread
+	 */
+	static int loadConcurrency(ZookeeperConfigProperties properties) {
+		Integer reloadConcurrency = RELOAD_CONCURRENCY.get();
+		return reloadConcurrency != null ? reloadConcurrency : properties.getLoadConcurrency();
+	}
+
+	/**
+	 * Starts loading the given contexts. Which of them exist is checked first, in a
+	 * single round trip, and the contexts that don't exist are not read any further.
+	 * When snapshots are enabled, they are written after every load and used as their
+	 * mode says.
+	 */
+	Map<String, CompletableFuture<ZookeeperPropertySource>> loadAsync(List<String> contexts,
+			CuratorFramework curator, ZookeeperConfigSnapshots snapshots) {
+		ZookeeperConfigProperties properties = this.properties;
+		// documents, live and lazy property sources don't list the contexts
+		boolean keyValue = properties.getFormat() == ZookeeperConfigProperties.Format.KEY_VALUE
+				&& !properties.isLive() && !properties.isLazy();
+		Map<String, List<String>> children = keyValue ? getChildren(contexts, curator) : Collections.emptyMap();
+		// read on this thread, the contexts are loaded on the loader threads
+		int loadConcurrency = loadConcurrency(properties);
+		Map<String, CompletableFuture<ZookeeperPropertySource>> loads = new LinkedHashMap<>();
+		ExecutorService loader = loader(contexts.size());
+		List<CompletableFuture<ZookeeperPropertySource>> started = new ArrayList<>();
+		for (String context : contexts) {
+			List<String> contextChildren = children.get(context);
+			if (loads.containsKey(context)) {
+				continue;
+			}
+			CompletableFuture<ZookeeperPropertySource> load;
+			if (!keyValue) {
+				load = CompletableFuture.supplyAsync(() -> load(context, curator, properties, loadConcurrency),
+						loader);
+			}
+			else if (contextChildren != null && contextChildren.isEmpty()) {
+				// nothing left to read
+				load = CompletableFuture.completedFuture(
+						new ZookeeperPropertySource(context, curator, loadConcurrency, contextChildren));
+			}
+			else {
+				load = CompletableFuture.supplyAsync(
+						() -> new ZookeeperPropertySource(context, curator, loadConcurrency, contextChildren),
+						loader);
+			}
+			started.add(load);
+			loads.put(context, snapshots != null ? snapshots.apply(context, curator, load) : load);
+		}
+		// the threads end once every context is loaded
+		CompletableFuture.allOf(started.toArray(new CompletableFuture<?>[0]))
+				.whenComplete((loaded, ex) -> loader.shutdown());
+		return loads;
+	}
+
+	private static ExecutorService loader(int contexts) {
+		return Executors.newFixedThreadPool(Math.max(1, Math.min(contexts, MAX_LOADER_THREADS)), runnable -> {
+			Thread thread = new Thread(runnable, "zookeeper-config-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Lists the children of all the given contexts with a single multi read, which
+	 * requires Zookeeper 3.6+.
+	 * @return the children by context, empty for a context that doesn't exist, and
+	 * without the contexts that couldn't be listed
+	 */
+	Map<String, List<String>> getChildren(List<String> contexts, CuratorFramework curator) {
+		Map<String, List<String>> children = new HashMap<>();
+		if (contexts.size() < 2) {
+			// no round trip to save
+			return children;
+		}
+		try {
+			List<Op> ops = new ArrayList<>(contexts.size());
+			for (String context : contexts) {
+				String path = context.startsWith("/") ? context : "/" + context;
+				ops.add(Op.getChildren(ZKPaths.fixForNamespace(curator.getNamespace(), path)));
+			}
+			CuratorZookeeperClient client = curator.getZookeeperClient();
+			List<OpResult> results = RetryLoop.callWithRetry(client, () -> client.getZooKeeper().multi(ops));
+			for (int i = 0; i < results.size(); i++) {
+				OpResult result = results.get(i);
+				if (result instanceof OpResult.GetChildrenResult) {
+					children.put(contexts.get(i), ((OpResult.GetChildrenResult) result).getChildren());
+				}
+				else if (result instanceof OpResult.ErrorResult
+						&& ((OpResult.ErrorResult) result).getErr() == KeeperException.Code.NONODE.intValue()) {
+					children.put(contexts.get(i), Collections.emptyList());
+				}
+			}
+		}
+		catch (Exception e) {
+			// older servers don't support multi reads, every context is listed on its own
+			if (log.isDebugEnabled()) {
+				log.debug("Unable to list the zookeeper config contexts " + contexts + " at once", e);
+			}
+			children.clear();
+		}
+		return children;
+	}
+
+	static ZookeeperPropertySource join(CompletableFuture<ZookeeperPropertySource> load) {
+		try {
+			return load.join();
+		}
+		catch (CompletionException e) {
+			// rethrow what loading on the calling thread would have thrown
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
 	public static class Context {
 
 		private final String path;
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.api.CuratorEventType;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Reads the data and the children of every znode below a path. The tree is walked level
+ * by level and the reads are issued as background operations on the single Zookeeper
+ * connection, with at most a fixed number of them in flight, instead of one blocking
+ * round trip after another. A missing znode reads as having neither data nor children,
+ * like the blocking reads it replaces.
+ *
+ * @since 5.0.3
+ */
+final class ZookeeperPropertyTreeReader implements BackgroundCallback {
+
+	private final CuratorFramework curator;
+
+	private final int concurrency;
+
+	private final boolean structure;
+
+	private final Deque<Read> queue = new ArrayDeque<>();
+
+	private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+	private int inFlight;
+
+	private ZookeeperPropertyTreeReader(CuratorFramework curator, int concurrency,
+			boolean structure) {
+		this.curator = curator;
+		this.concurrency = Math.max(1, concurrency);
+		this.structure = structure;
+	}
+
+	/**
+	 * Reads the tree below the given path.
+	 * @param curator the Curator client
+	 * @param path the path whose descendants to read
+	 * @param children the already read children of the path
+	 * @param concurrency the maximum number of reads in flight
+	 * @return the path, with its descendants read
+	 * @throws Exception as for the blocking {@code getData} and {@code getChildren}
+	 */
+	static Node read(CuratorFramework curator, String path, List<String> children,
+			int concurrency) throws Exception {
+		Node root = new Node(path);
+		root.children = children;
+		new ZookeeperPropertyTreeReader(curator, concurrency, false).await(root);
+		return root;
+	}
+
+	/**
+	 * Reads the structure of the tree below the given path, that is the children and the
+	 * stat of every znode but not their data, with a single read per znode.
+	 * @param curator the Curator client
+	 * @param path the path whose descendants to read
+	 * @param children the already read children of the path
+	 * @param concurrency the maximum number of reads in flight
+	 * @return the path, with its descendants read
+	 * @throws Exception as for the blocking {@code getChildren}
+	 */
+	static Node readStructure(CuratorFramework curator, String path,
+			List<String> children, int concurrency) throws Exception {
+		Node root = new Node(path);
+		root.children = children;
+		new ZookeeperPropertyTreeReader(curator, concurrency, true).await(root);
+		return root;
+	}
+
+	private void await(Node root) throws Exception {
+		synchronized (this) {
+			expand(root);
+		}
+		drain();
+		try {
+			this.done.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		catch (InterruptedException e) {
+			// stop issuing the remaining reads
+			this.done.cancel(false);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	// must hold the lock
+	private void expand(Node node) {
+		List<String> children = node.children;
+		if (children == null || children.isEmpty()) {
+			return;
+		}
+		List<Node> nodes = new ArrayList<>(children.size());
+		for (String child : children) {
+			Node childNode = new Node(node.path + "/" + child);
+			nodes.add(childNode);
+			this.queue.add(new Read(childNode, true));
+			if (!this.structure) {
+				this.queue.add(new Read(childNode, false));
+			}
+		}
+		node.nodes = nodes;
+	}
+
+	private void drain() {
+		List<Read> reads = new ArrayList<>();
+		synchronized (this) {
+			while (this.inFlight < this.concurrency && !this.queue.isEmpty()) {
+				reads.add(this.queue.poll());
+				this.inFlight++;
+			}
+			if (this.inFlight == 0) {
+				this.done.complete(null);
+				return;
+			}
+		}
+		// issued without the lock, a callback may run on this thread
+		for (Read read : reads) {
+			if (this.done.isDone()) {
+				return;
+			}
+			try {
+				if (read.children) {
+					this.curator.getChildren().inBackground(this, read.node)
+							.forPath(read.node.path);
+				}
+				else {
+					this.curator.getData().inBackground(this, read.node)
+							.forPath(read.node.path);
+				}
+			}
+			catch (Exception e) {
+				this.done.completeExceptionally(e);
+			}
+		}
+	}
+
+	@Override
+	public void processResult(CuratorFramework client, CuratorEvent event) {
+		Node node = (Node) event.getContext();
+		KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+		if (code != KeeperException.Code.OK && code != KeeperException.Code.NONODE) {
+			this.done.completeExceptionally(KeeperException.create(code, node.path));
+			return;
+		}
+		synchronized (this) {
+			this.inFlight--;
+			if (event.getType() == CuratorEventType.CHILDREN) {
+				node.children = code == KeeperException.Code.OK ? event.getChildren()
+						: null;
+				if (this.structure) {
+					// the stat comes with the children
+					node.stat = event.getStat();
+				}
+				expand(node);
+			}
+			else {
+				node.data = code == KeeperException.Code.OK ? event.getData() : null;
+				node.stat = event.getStat();
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * A znode and its descendants, once read.
+	 */
+	static final class Node {
+
+		final String path;
+
+		List<String> children;
+
+		byte[] data;
+
+		Stat stat;
+
+		List<Node> nodes = Collections.emptyList();
+
+		Node(String path) {
+			this.path = path;
+		}
+
+	}
+
+	private static final class Read {
+
+		private final Node node;
+
+		private final boolean children;
+
+		Read(Node node, boolean children) {
+			this.node = node;
+			this.children = children;
+		}
+
+	}
+
+}
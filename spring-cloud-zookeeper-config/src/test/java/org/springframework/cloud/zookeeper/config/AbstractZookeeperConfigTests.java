@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+/**
+ * Base class of the tests running against an in-process Zookeeper server, started
+ * before and closed after every test along with a Curator client connected to it.
+ */
+abstract class AbstractZookeeperConfigTests {
+
+	protected TestingServer server;
+
+	protected CuratorFramework curator;
+
+	@BeforeEach
+	void startZookeeper() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+	}
+
+	@AfterEach
+	void stopZookeeper() throws Exception {
+		this.curator.close();
+		this.server.close();
+	}
+
+	protected void create(String path, String value) throws Exception {
+		this.curator.create().creatingParentsIfNeeded().forPath(path, value.getBytes());
+	}
+
+}
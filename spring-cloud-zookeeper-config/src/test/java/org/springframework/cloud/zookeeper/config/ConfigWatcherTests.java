@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Snapshot.Mode;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ConfigWatcherTests extends AbstractZookeeperConfigTests {
+
+	private GenericApplicationContext context;
+
+	private ConfigWatcher watcher;
+
+	private final ZookeeperConfigProperties properties = new ZookeeperConfigProperties();
+
+	private final List<ApplicationEvent> events = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setup() throws Exception {
+		create("/config/app/a", "1");
+		create("/config/app/b", "2");
+		this.context = new GenericApplicationContext();
+		this.context.addApplicationListener(event -> {
+			if (event instanceof EnvironmentChangeEvent || event instanceof RefreshEvent) {
+				this.events.add(event);
+			}
+		});
+		this.context.refresh();
+		this.context.getEnvironment().getPropertySources()
+				.addFirst(new ZookeeperPropertySource("config/app", this.curator));
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		if (this.watcher != null) {
+			this.watcher.close();
+		}
+		this.context.close();
+	}
+
+	@Test
+	void patchesABurstOfChangesWithASingleEvent() throws Exception {
+		watch(ZookeeperWatchMode.TREE_CACHE);
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+		this.curator.delete().forPath("/config/app/b");
+		create("/config/app/c/d", "4");
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(this.events).singleElement().isInstanceOf(EnvironmentChangeEvent.class);
+		assertThat(((EnvironmentChangeEvent) this.events.get(0)).getKeys())
+				.containsExactlyInAnyOrder("a", "b", "c.d");
+		assertThat(this.context.getEnvironment().getProperty("a")).isEqualTo("10");
+		assertThat(this.context.getEnvironment().getProperty("b")).isNull();
+		assertThat(this.context.getEnvironment().getProperty("c")).isNull();
+		assertThat(this.context.getEnvironment().getProperty("c.d")).isEqualTo("4");
+	}
+
+	@Test
+	void patchesTheChangesSeenByAPersistentWatch() throws Exception {
+		watch(ZookeeperWatchMode.PERSISTENT_RECURSIVE);
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS)
+				.until(() -> "10".equals(this.context.getEnvironment().getProperty("a")));
+		assertThat(this.events).singleElement().isInstanceOf(EnvironmentChangeEvent.class);
+	}
+
+	@Test
+	void ignoresTheNodesFoundWhileTheTreeCacheInitializes() throws Exception {
+		watch();
+
+		assertThat(this.events).isEmpty();
+	}
+
+	@Test
+	void publishesARefreshForEveryChangeByDefault() throws Exception {
+		watch();
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(this.events).singleElement().isInstanceOf(RefreshEvent.class);
+		assertThat(this.context.getEnvironment().getProperty("a")).isEqualTo("1");
+	}
+
+	@Test
+	void patchesEveryChangeWhenEnabled() throws Exception {
+		this.properties.getWatcher().setPatch(true);
+		watch();
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(this.events).singleElement()
+				.isInstanceOf(ZookeeperConfigChangeEvent.class);
+		assertThat(this.context.getEnvironment().getProperty("a")).isEqualTo("10");
+	}
+
+	@Test
+	void refreshesOncePersistentWatchesAreSetAgain() throws Exception {
+		this.properties.getWatcher().setMode(ZookeeperWatchMode.PERSISTENT_RECURSIVE);
+		watch();
+		assertThat(this.events).isEmpty();
+
+		this.server.restart();
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(this.events).singleElement().isInstanceOf(RefreshEvent.class);
+	}
+
+	@Test
+	void writesTheSnapshotOfThePatchedContexts(@TempDir Path directory) throws Exception {
+		this.properties.getWatcher().setPatch(true);
+		this.properties.getSnapshot().setMode(Mode.FALLBACK);
+		this.properties.getSnapshot().setDirectory(directory.toString());
+		watch();
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		ZookeeperPropertySource snapshot = new ZookeeperConfigSnapshots(directory, Mode.FALLBACK)
+				.apply("config/app", this.curator,
+						CompletableFuture.failedFuture(new IllegalStateException("down")))
+				.join();
+		assertThat(snapshot.getProperty("a")).isEqualTo("10");
+	}
+
+	@Test
+	void reloadsTheContextWhenItsVersionMarkerIsBumped() throws Exception {
+		this.properties.getWatcher().setVersionMarker(true);
+		this.properties.getWatcher().setPatch(true);
+		watch();
+		Map<String, String> changes = new LinkedHashMap<>();
+		changes.put("a", "10");
+		changes.put("b", null);
+		changes.put("c.d", "4");
+
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app", changes);
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(this.events).singleElement().isInstanceOf(EnvironmentChangeEvent.class);
+		assertThat(((EnvironmentChangeEvent) this.events.get(0)).getKeys())
+				.containsExactlyInAnyOrder("a", "b", "c.d");
+		assertThat(this.context.getEnvironment().getProperty("a")).isEqualTo("10");
+		assertThat(this.context.getEnvironment().getProperty("b")).isNull();
+		assertThat(this.context.getEnvironment().getProperty("c.d")).isEqualTo("4");
+	}
+
+	@Test
+	void staggersTheChangesExceptTheUrgentOnes() throws Exception {
+		this.properties.getWatcher().setStaggerWindow(Duration.ofDays(365));
+		this.properties.getWatcher().setUrgentKeys(Collections.singletonList("b"));
+		this.properties.getWatcher().setPatch(true);
+		watch();
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+		Thread.sleep(500);
+		assertThat(this.events).isEmpty();
+
+		this.curator.setData().forPath("/config/app/b", "20".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !this.events.isEmpty());
+		assertThat(((EnvironmentChangeEvent) this.events.get(0)).getKeys())
+				.containsExactly("b");
+		Thread.sleep(500);
+		assertThat(this.events).hasSize(1);
+		assertThat(this.context.getEnvironment().getProperty("a")).isEqualTo("1");
+		assertThat(this.context.getEnvironment().getProperty("b")).isEqualTo("20");
+	}
+
+	@Test
+	void reloadsTheContextsWithTheReloadConcurrencyOnARefresh() throws Exception {
+		this.properties.getWatcher().setReloadConcurrency(3);
+		List<Integer> loadConcurrencies = new CopyOnWriteArrayList<>();
+		this.context.addApplicationListener(event -> {
+			if (event instanceof RefreshEvent) {
+				// the refresh reloads the contexts on the thread publishing it
+				loadConcurrencies.add(ZookeeperPropertySources
+						.loadConcurrency(new ZookeeperConfigProperties()));
+			}
+		});
+		watch();
+		this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !loadConcurrencies.isEmpty());
+		assertThat(loadConcurrencies).containsExactly(3);
+		assertThat(ZookeeperPropertySources.loadConcurrency(new ZookeeperConfigProperties()))
+				.isEqualTo(ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY);
+	}
+
+	private void watch(ZookeeperWatchMode mode) throws Exception {
+		this.properties.getWatcher().setMode(mode);
+		this.properties.getWatcher().setQuietPeriod(Duration.ofMillis(200));
+		watch();
+	}
+
+	private void watch() throws Exception {
+		this.watcher = new ConfigWatcher(Collections.singletonList("config/app"),
+				this.curator, this.properties);
+		this.watcher.setApplicationContext(this.context);
+		this.watcher.setApplicationEventPublisher(this.context);
+		this.watcher.start();
+		// let the tree cache initialize
+		Thread.sleep(500);
+	}
+
+}
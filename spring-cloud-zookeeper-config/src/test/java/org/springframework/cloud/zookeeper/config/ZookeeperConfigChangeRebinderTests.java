@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.autoconfigure.ConfigurationPropertiesRebinderAutoConfiguration;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZookeeperConfigChangeRebinderTests {
+
+	private final Map<String, Object> properties = new HashMap<>();
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(RefreshAutoConfiguration.class,
+					ConfigurationPropertiesRebinderAutoConfiguration.class))
+			.withInitializer(context -> context.getEnvironment().getPropertySources()
+					.addFirst(new MapPropertySource("zookeeper", this.properties)))
+			.withUserConfiguration(Config.class);
+
+	@Test
+	void rebindsOnlyTheBeansBoundToTheChangedKeys() {
+		this.properties.put("a.value", "1");
+		this.properties.put("b.value", "1");
+		this.properties.put("c.value", "1");
+		this.contextRunner.run(context -> {
+			assertThat(context.getBean(ValueOfA.class).getValue()).isEqualTo("1");
+			assertThat(context.getBean(ValueOfC.class).getValue()).isEqualTo("1");
+			this.properties.put("a.value", "2");
+			this.properties.put("b.value", "2");
+			this.properties.put("c.value", "2");
+
+			context.publishEvent(new ZookeeperConfigChangeEvent(
+					new ConfigWatcher(Collections.emptyList(), null),
+					Collections.singleton("a.value")));
+
+			assertThat(context.getBean(AProperties.class).getValue()).isEqualTo("2");
+			assertThat(context.getBean(BProperties.class).getValue()).isEqualTo("1");
+			assertThat(context.getBean(ValueOfA.class).getValue()).isEqualTo("2");
+			assertThat(context.getBean(ValueOfC.class).getValue()).isEqualTo("1");
+		});
+	}
+
+	@Test
+	void rebindsTheBeansBoundToAnAncestorOfTheChangedKeys() {
+		this.properties.put("a.value", "1");
+		this.contextRunner.run(context -> {
+			this.properties.put("a.value", "2");
+
+			context.publishEvent(new ZookeeperConfigChangeEvent(
+					new ConfigWatcher(Collections.emptyList(), null),
+					Collections.singleton("a")));
+
+			assertThat(context.getBean(AProperties.class).getValue()).isEqualTo("2");
+		});
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableConfigurationProperties({ AProperties.class, BProperties.class })
+	@Import({ ValueOfA.class, ValueOfC.class })
+	static class Config {
+
+		@Bean
+		ZookeeperConfigChangeRebinder zookeeperConfigChangeRebinder(
+				ObjectProvider<ConfigurationPropertiesRebinder> rebinder,
+				ObjectProvider<RefreshScope> refreshScope) {
+			return new ZookeeperConfigChangeRebinder(rebinder, refreshScope);
+		}
+
+	}
+
+	@ConfigurationProperties("a")
+	static class AProperties {
+
+		private String value;
+
+		public String getValue() {
+			return this.value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+
+	}
+
+	@ConfigurationProperties("b")
+	static class BProperties {
+
+		private String value;
+
+		public String getValue() {
+			return this.value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+
+	}
+
+	@org.springframework.cloud.context.config.annotation.RefreshScope
+	static class ValueOfA {
+
+		@Value("${a.value}")
+		private String value;
+
+		public String getValue() {
+			return this.value;
+		}
+
+	}
+
+	@org.springframework.cloud.context.config.annotation.RefreshScope
+	static class ValueOfC {
+
+		@Value("${c.value:none}")
+		private String value;
+
+		public String getValue() {
+			return this.value;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZookeeperConfigDocumentsTests extends AbstractZookeeperConfigTests {
+
+	@Test
+	void loadsAPropertiesDocumentFromTheContext() throws Exception {
+		ZookeeperConfigDocuments.write(this.curator, "/config/app",
+				bytes("a=1\na.b=2\n"));
+
+		ZookeeperPropertySource source = ZookeeperConfigDocuments.load("config/app",
+				this.curator, Format.PROPERTIES, "");
+
+		assertThat(source.getPropertyNames()).containsExactly("a", "a.b");
+		assertThat(source.getProperty("a.b")).isEqualTo("2");
+		assertThat(source.getZxid()).isPositive();
+	}
+
+	@Test
+	void loadsAYamlDocumentFromADataKey() throws Exception {
+		ZookeeperConfigDocuments.write(this.curator, "/config/app/data",
+				bytes("a:\n  b: 2\n  list:\n    - x\n"));
+
+		ZookeeperPropertySource source = ZookeeperConfigDocuments.load("config/app",
+				this.curator, Format.YAML, "data");
+
+		assertThat(source.getProperty("a.b")).isEqualTo("2");
+		assertThat(source.getProperty("a.list[0]")).isEqualTo("x");
+	}
+
+	@Test
+	void loadsNothingForAMissingDocument() {
+		ZookeeperPropertySource source = ZookeeperConfigDocuments.load("config/missing",
+				this.curator, Format.PROPERTIES, "");
+
+		assertThat(source.getPropertyNames()).isEmpty();
+	}
+
+	@Test
+	void joinsTheChunksOfALargeDocument() throws Exception {
+		StringBuilder document = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			document.append("key").append(i).append("=value").append(i).append('\n');
+		}
+		ZookeeperConfigDocuments.write(this.curator, "/config/app",
+				bytes(document.toString()), 1000);
+		assertThat(this.curator.getChildren().forPath("/config/app")).hasSizeGreaterThan(1);
+
+		ZookeeperPropertySource source = ZookeeperConfigDocuments.load("config/app",
+				this.curator, Format.PROPERTIES, "");
+
+		assertThat(source.getPropertyNames()).hasSize(500);
+		assertThat(source.getProperty("key499")).isEqualTo("value499");
+	}
+
+	@Test
+	void replacesTheChunksOfARewrittenDocument() throws Exception {
+		ZookeeperConfigDocuments.write(this.curator, "/config/app",
+				bytes("a=1\nb=2\nc=3\n"), 4);
+
+		ZookeeperConfigDocuments.write(this.curator, "/config/app", bytes("a=10\n"));
+
+		assertThat(this.curator.getChildren().forPath("/config/app")).isEmpty();
+		ZookeeperPropertySource source = ZookeeperConfigDocuments.load("config/app",
+				this.curator, Format.PROPERTIES, "");
+		assertThat(source.getPropertyNames()).containsExactly("a");
+		assertThat(source.getProperty("a")).isEqualTo("10");
+	}
+
+	@Test
+	void rejectsACorruptChunk() throws Exception {
+		ZookeeperConfigDocuments.write(this.curator, "/config/app",
+				bytes("a=1\nb=2\nc=3\n"), 4);
+		List<String> chunks = this.curator.getChildren().forPath("/config/app");
+		this.curator.setData().forPath("/config/app/" + chunks.get(0), bytes("x=1\n"));
+
+		assertThatThrownBy(() -> ZookeeperConfigDocuments.load("config/app", this.curator,
+				Format.PROPERTIES, "")).hasMessageContaining("Corrupt");
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.cloud.zookeeper.config.ZookeeperConfigProperties.Snapshot.Mode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ZookeeperConfigSnapshotsTests {
+
+	@TempDir
+	Path directory;
+
+	private final CuratorFramework curator = mock(CuratorFramework.class);
+
+	@Test
+	void fallsBackToTheLastLoadedProperties() {
+		ZookeeperConfigSnapshots snapshots = new ZookeeperConfigSnapshots(this.directory, Mode.FALLBACK);
+		snapshots.apply("config/app", this.curator, CompletableFuture.completedFuture(source("a", "1", 7))).join();
+
+		ZookeeperPropertySource source = snapshots
+				.apply("config/app", this.curator, CompletableFuture.failedFuture(new IllegalStateException("down")))
+				.join();
+
+		assertThat(source.getProperty("a")).isEqualTo("1");
+		assertThat(source.getZxid()).isEqualTo(7);
+	}
+
+	@Test
+	void failsWithoutASnapshot() {
+		ZookeeperConfigSnapshots snapshots = new ZookeeperConfigSnapshots(this.directory, Mode.FALLBACK);
+
+		CompletableFuture<ZookeeperPropertySource> load = snapshots.apply("config/app", this.curator,
+				CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+		assertThatThrownBy(() -> ZookeeperPropertySources.join(load)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void prefersTheSnapshotAndRefreshesOnceReadyIfItChanged() {
+		ZookeeperConfigSnapshots snapshots = new ZookeeperConfigSnapshots(this.directory, Mode.PREFER);
+		snapshots.apply("config/app", this.curator, CompletableFuture.completedFuture(source("a", "1", 7))).join();
+		CompletableFuture<ZookeeperPropertySource> reload = new CompletableFuture<>();
+
+		ZookeeperPropertySource source = snapshots.apply("config/app", this.curator, reload).join();
+		assertThat(source.getProperty("a")).isEqualTo("1");
+
+		reload.complete(source("a", "2", 9));
+		assertThat(source.getProperty("a")).isEqualTo("2");
+
+		List<Object> events = new ArrayList<>();
+		snapshots.ready(events::add);
+		assertThat(events).singleElement().isInstanceOf(RefreshEvent.class);
+	}
+
+	private ZookeeperPropertySource source(String key, String value, long zxid) {
+		Map<String, String> properties = new LinkedHashMap<>();
+		properties.put(key, value);
+		return new ZookeeperPropertySource("config/app", this.curator, properties, zxid);
+	}
+
+}
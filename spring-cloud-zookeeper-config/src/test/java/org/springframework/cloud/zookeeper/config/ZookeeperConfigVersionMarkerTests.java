@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZookeeperConfigVersionMarkerTests extends AbstractZookeeperConfigTests {
+
+	@Test
+	void writesTheKeysAndBumpsTheMarker() throws Exception {
+		Map<String, String> changes = new LinkedHashMap<>();
+		changes.put("a.b", "1");
+		changes.put("a", "2");
+		changes.put("c", "3");
+
+		int version = ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				changes);
+
+		assertThat(version).isEqualTo(1);
+		assertThat(this.curator.checkExists().forPath("/config/app").getVersion())
+				.isEqualTo(1);
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator);
+		assertThat(source.getProperty("a")).isEqualTo("2");
+		assertThat(source.getProperty("a.b")).isEqualTo("1");
+		assertThat(source.getProperty("c")).isEqualTo("3");
+	}
+
+	@Test
+	void removesTheKeysWithoutValue() throws Exception {
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				Collections.singletonMap("a", "1"));
+
+		int version = ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				Collections.singletonMap("a", null));
+
+		assertThat(version).isEqualTo(2);
+		assertThat(this.curator.checkExists().forPath("/config/app/a")).isNull();
+	}
+
+	@Test
+	void removesTheParentsLeftWithoutKeys() throws Exception {
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				Collections.singletonMap("a.b.c", "1"));
+
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				Collections.singletonMap("a.b.c", null));
+
+		assertThat(this.curator.checkExists().forPath("/config/app/a")).isNull();
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator);
+		assertThat(source.getPropertyNames()).isEmpty();
+	}
+
+	@Test
+	void keepsTheKeysBelowARemovedKey() throws Exception {
+		Map<String, String> changes = new LinkedHashMap<>();
+		changes.put("a", "1");
+		changes.put("a.b", "2");
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app", changes);
+
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app",
+				Collections.singletonMap("a", null));
+
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator);
+		assertThat(source.getPropertyNames()).containsExactly("a.b");
+		assertThat(source.getProperty("a.b")).isEqualTo("2");
+	}
+
+	@Test
+	void removesAKeyAlongWithTheKeysBelowIt() throws Exception {
+		Map<String, String> changes = new LinkedHashMap<>();
+		changes.put("a", "1");
+		changes.put("a.b", "2");
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app", changes);
+		changes.put("a", null);
+		changes.put("a.b", null);
+
+		ZookeeperConfigVersionMarker.publish(this.curator, "config/app", changes);
+
+		assertThat(this.curator.checkExists().forPath("/config/app/a")).isNull();
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ZookeeperLazyPropertySourceTests extends AbstractZookeeperConfigTests {
+
+	@BeforeEach
+	void setup() throws Exception {
+		create("/config/app/a", "1");
+		create("/config/app/a/b", "2");
+		create("/config/app/empty", "");
+		create("/config/app/parent/child", "3");
+	}
+
+	@Test
+	void findsTheSameKeysAsALoadWithoutReadingTheValues() {
+		ZookeeperLazyPropertySource source = new ZookeeperLazyPropertySource("config/app",
+				this.curator, ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY);
+		ZookeeperPropertySource loaded = new ZookeeperPropertySource("config/app",
+				this.curator);
+
+		assertThat(source.getPropertyNames()).containsExactly(loaded.getPropertyNames());
+		assertThat(source.getProperties()).isEmpty();
+		for (String name : loaded.getPropertyNames()) {
+			assertThat(source.getProperty(name)).isEqualTo(loaded.getProperty(name));
+		}
+		assertThat(source.getProperties()).hasSize(loaded.getPropertyNames().length);
+		assertThat(source.getZxid()).isEqualTo(loaded.getZxid());
+	}
+
+	@Test
+	void readsAChangedValueAgain() throws Exception {
+		ZookeeperLazyPropertySource source = new ZookeeperLazyPropertySource("config/app",
+				this.curator, ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY);
+		assertThat(source.getProperty("a.b")).isEqualTo("2");
+
+		this.curator.setData().forPath("/config/app/a/b", "20".getBytes());
+
+		await().atMost(10, TimeUnit.SECONDS)
+				.until(() -> "20".equals(source.getProperty("a.b")));
+	}
+
+	@Test
+	void updatesTheKeysOfChangedZnodes() throws Exception {
+		ZookeeperLazyPropertySource source = new ZookeeperLazyPropertySource("config/app",
+				this.curator, ZookeeperPropertySource.DEFAULT_LOAD_CONCURRENCY);
+		create("/config/app/c", "4");
+		this.curator.delete().forPath("/config/app/empty");
+
+		assertThat(source.update(Collections.singletonMap("/config/app/c",
+				this.curator.checkExists().forPath("/config/app/c")))).containsExactly("c");
+		assertThat(source.update(Collections.singletonMap("/config/app/empty", null)))
+				.containsExactly("empty");
+
+		assertThat(source.getProperty("c")).isEqualTo("4");
+		assertThat(source.containsProperty("empty")).isFalse();
+	}
+
+}
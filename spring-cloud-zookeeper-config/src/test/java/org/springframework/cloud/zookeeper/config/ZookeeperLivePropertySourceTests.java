@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ZookeeperLivePropertySourceTests extends AbstractZookeeperConfigTests {
+
+	private ZookeeperLivePropertySource source;
+
+	@BeforeEach
+	void setup() throws Exception {
+		create("/config/app/a", "1");
+		create("/config/app/a/b", "2");
+		create("/config/app/empty", "");
+		create("/config/app/parent/child", "3");
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		if (this.source != null) {
+			this.source.close();
+		}
+	}
+
+	@Test
+	void loadsTheSameKeysAsAOneOffLoad() {
+		this.source = ZookeeperLivePropertySource.start("config/app", this.curator);
+		ZookeeperPropertySource loaded = new ZookeeperPropertySource("config/app",
+				this.curator);
+
+		assertThat(this.source.getPropertyNames())
+				.containsExactlyInAnyOrder(loaded.getPropertyNames());
+		for (String name : loaded.getPropertyNames()) {
+			assertThat(this.source.getProperty(name)).isEqualTo(loaded.getProperty(name));
+		}
+		assertThat(this.source.getZxid()).isEqualTo(loaded.getZxid());
+	}
+
+	@Test
+	void appliesChangesAsTheyArrive() throws Exception {
+		this.source = ZookeeperLivePropertySource.start("config/app", this.curator);
+		List<Set<String>> changes = new CopyOnWriteArrayList<>();
+		this.source.setChangeListener(changes::add);
+
+		this.curator.setData().forPath("/config/app/a/b", "20".getBytes());
+		await().atMost(10, TimeUnit.SECONDS)
+				.until(() -> "20".equals(this.source.getProperty("a.b")));
+		create("/config/app/empty/nested", "4");
+		await().atMost(10, TimeUnit.SECONDS)
+				.until(() -> "4".equals(this.source.getProperty("empty.nested")));
+
+		assertThat(this.source.getProperty("empty")).isNull();
+		assertThat(changes).containsExactly(Collections.singleton("a.b"),
+				Set.of("empty.nested", "empty"));
+	}
+
+	@Test
+	void appliesABurstOfChangesInBatches() throws Exception {
+		this.source = ZookeeperLivePropertySource.start("config/app", this.curator);
+		List<Set<String>> changes = new CopyOnWriteArrayList<>();
+		this.source.setChangeListener(keys -> {
+			changes.add(keys);
+			if (changes.size() == 1) {
+				try {
+					// the rest of the burst arrives while the first batch is applied
+					Thread.sleep(1000);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		List<CuratorOp> operations = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			operations.add(this.curator.transactionOp().create()
+					.forPath("/config/app/burst" + i, String.valueOf(i).getBytes()));
+		}
+
+		this.curator.transaction().forOperations(operations);
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> IntStream.range(0, 100)
+				.allMatch(i -> String.valueOf(i).equals(this.source.getProperty("burst" + i))));
+		assertThat(changes).hasSizeLessThanOrEqualTo(2);
+		assertThat(changes.stream().mapToInt(Set::size).sum()).isEqualTo(100);
+	}
+
+	@Test
+	void isWatchedByTheConfigWatcherWithoutASecondCache() throws Exception {
+		this.source = ZookeeperLivePropertySource.start("config/app", this.curator);
+		List<EnvironmentChangeEvent> events = new CopyOnWriteArrayList<>();
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.addApplicationListener(event -> {
+			if (event instanceof EnvironmentChangeEvent) {
+				events.add((EnvironmentChangeEvent) event);
+			}
+		});
+		context.refresh();
+		context.getEnvironment().getPropertySources().addFirst(this.source);
+		ConfigWatcher watcher = new ConfigWatcher(Collections.singletonList("config/app"),
+				this.curator);
+		watcher.setApplicationContext(context);
+		watcher.setApplicationEventPublisher(context);
+		watcher.start();
+		try {
+			this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+			await().atMost(10, TimeUnit.SECONDS).until(() -> !events.isEmpty());
+			assertThat(events.get(0).getKeys()).containsExactly("a");
+			assertThat(context.getEnvironment().getProperty("a")).isEqualTo("10");
+		}
+		finally {
+			watcher.close();
+			context.close();
+		}
+	}
+
+	@Test
+	void closesTheLivePropertySourcesARefreshReplaced() throws Exception {
+		this.source = ZookeeperLivePropertySource.start("config/app", this.curator);
+		ZookeeperLivePropertySource refreshed = ZookeeperLivePropertySource
+				.start("config/app", this.curator);
+		List<EnvironmentChangeEvent> events = new CopyOnWriteArrayList<>();
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.addApplicationListener(event -> {
+			if (event instanceof EnvironmentChangeEvent) {
+				events.add((EnvironmentChangeEvent) event);
+			}
+		});
+		context.refresh();
+		context.getEnvironment().getPropertySources().addFirst(this.source);
+		ConfigWatcher watcher = new ConfigWatcher(Collections.singletonList("config/app"),
+				this.curator);
+		watcher.setApplicationContext(context);
+		watcher.setApplicationEventPublisher(context);
+		watcher.start();
+		try {
+			context.getEnvironment().getPropertySources().replace(this.source.getName(),
+					refreshed);
+			watcher.onApplicationEvent(new EnvironmentChangeEvent(Collections.emptySet()));
+			this.curator.setData().forPath("/config/app/a", "10".getBytes());
+
+			await().atMost(10, TimeUnit.SECONDS).until(() -> !events.isEmpty());
+			assertThat(events.get(0).getKeys()).containsExactly("a");
+			assertThat(context.getEnvironment().getProperty("a")).isEqualTo("10");
+			assertThat(this.source.getProperty("a")).isEqualTo("1");
+		}
+		finally {
+			watcher.close();
+			refreshed.close();
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.origin.PropertySourceOrigin;
+import org.springframework.core.env.PropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZookeeperMergedPropertySourceTests extends AbstractZookeeperConfigTests {
+
+	@BeforeEach
+	void setup() throws Exception {
+		create("/config/app/shared", "app");
+		create("/config/app/own", "1");
+		create("/config/application/shared", "default");
+		create("/config/application/other", "2");
+	}
+
+	@Test
+	void resolvesEveryKeyFromTheContextWithTheHighestPrecedence() {
+		ZookeeperPropertySource app = new ZookeeperPropertySource("config/app",
+				this.curator);
+		ZookeeperPropertySource application = new ZookeeperPropertySource(
+				"config/application", this.curator);
+
+		ZookeeperMergedPropertySource merged = new ZookeeperMergedPropertySource(
+				"zookeeper", this.curator, Arrays.asList(app, application));
+
+		assertThat(merged.getPropertyNames()).containsExactlyInAnyOrder("shared", "own", "other");
+		assertThat(merged.getProperty("shared")).isEqualTo("app");
+		assertThat(merged.getProperty("other")).isEqualTo("2");
+		assertThat(merged.containsProperty("missing")).isFalse();
+		assertThat(((PropertySourceOrigin) merged.getOrigin("shared")).getPropertySource())
+				.isSameAs(app);
+		assertThat(((PropertySourceOrigin) merged.getOrigin("other")).getPropertySource())
+				.isSameAs(application);
+		assertThat(merged.getOrigin("missing")).isNull();
+	}
+
+	@Test
+	void mergesThePropertiesAgainWhenRebuilt() {
+		ZookeeperPropertySource app = new ZookeeperPropertySource("config/app",
+				this.curator);
+		ZookeeperPropertySource application = new ZookeeperPropertySource(
+				"config/application", this.curator);
+		ZookeeperMergedPropertySource merged = new ZookeeperMergedPropertySource(
+				"zookeeper", this.curator, Arrays.asList(app, application));
+
+		app.setProperties(Collections.singletonMap("own", "10"), app.getZxid());
+		assertThat(merged.getProperty("shared")).isEqualTo("app");
+
+		merged.rebuild();
+
+		assertThat(merged.getProperty("shared")).isEqualTo("default");
+		assertThat(merged.getProperty("own")).isEqualTo("10");
+	}
+
+	@Test
+	void locatesASingleMergedPropertySource() {
+		ZookeeperConfigProperties properties = new ZookeeperConfigProperties();
+		properties.setName("app");
+		properties.setMerged(true);
+
+		PropertySource<?> propertySource = new ZookeeperPropertySourceLocator(
+				this.curator, properties).locate(new MockEnvironment());
+
+		assertThat(propertySource).isInstanceOf(ZookeeperMergedPropertySource.class);
+		assertThat(propertySource.getProperty("shared")).isEqualTo("app");
+		assertThat(propertySource.getProperty("other")).isEqualTo("2");
+	}
+
+	@Test
+	void leavesOutTheContextsThatFailedToLoad() throws Exception {
+		// the context can't be listed
+		this.curator.create()
+				.withACL(Collections.singletonList(
+						new ACL(ZooDefs.Perms.CREATE, ZooDefs.Ids.ANYONE_ID_UNSAFE)))
+				.forPath("/config/app,dev");
+		ZookeeperConfigProperties properties = new ZookeeperConfigProperties();
+		properties.setName("app");
+		properties.setMerged(true);
+		properties.setFailFast(false);
+		MockEnvironment environment = new MockEnvironment();
+		environment.setActiveProfiles("dev");
+
+		PropertySource<?> propertySource = new ZookeeperPropertySourceLocator(
+				this.curator, properties).locate(environment);
+
+		assertThat(propertySource).isInstanceOf(ZookeeperMergedPropertySource.class);
+		assertThat(((ZookeeperMergedPropertySource) propertySource).getPropertySources())
+				.extracting(ZookeeperPropertySource::getContext)
+				.containsExactly("/config/app", "/config/application,dev", "/config/application");
+		assertThat(propertySource.getProperty("shared")).isEqualTo("app");
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZookeeperPropertySourceTests extends AbstractZookeeperConfigTests {
+
+	@BeforeEach
+	void setup() throws Exception {
+		create("/config/app/a", "1");
+		create("/config/app/a/b", "2");
+		create("/config/app/a/b/c", "3");
+		create("/config/app/empty", "");
+		create("/config/app/parent/child", "4");
+		for (int i = 0; i < 50; i++) {
+			create("/config/app/many/key" + i, "value" + i);
+		}
+	}
+
+	@Test
+	void loadsNestedKeysDepthFirst() {
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator, 4);
+
+		assertThat(source.getProperty("a")).isEqualTo("1");
+		assertThat(source.getProperty("a.b")).isEqualTo("2");
+		assertThat(source.getProperty("a.b.c")).isEqualTo("3");
+		assertThat(source.getProperty("empty")).isEqualTo("");
+		assertThat(source.getProperty("parent")).isNull();
+		assertThat(source.getProperty("parent.child")).isEqualTo("4");
+		assertThat(source.getProperty("many.key42")).isEqualTo("value42");
+		assertThat(source.getPropertyNames()).hasSize(55);
+		assertThat(source.getPropertyNames()).containsSubsequence("a", "a.b", "a.b.c");
+	}
+
+	@Test
+	void loadsTheSameKeysWhateverTheConcurrency() {
+		ZookeeperPropertySource serial = new ZookeeperPropertySource("config/app",
+				this.curator, 1);
+		ZookeeperPropertySource pipelined = new ZookeeperPropertySource("config/app",
+				this.curator, 64);
+
+		assertThat(pipelined.getPropertyNames()).containsExactly(serial.getPropertyNames());
+		for (String name : serial.getPropertyNames()) {
+			assertThat(pipelined.getProperty(name)).isEqualTo(serial.getProperty(name));
+		}
+	}
+
+	@Test
+	void keepsThePropertiesInACompactMap() {
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator);
+		Map<String, String> properties = new LinkedHashMap<>(source.getProperties());
+
+		assertThat(source.getProperties()).isInstanceOf(ZookeeperPropertyMap.class)
+				.isEqualTo(properties);
+		assertThat(source.getProperties().keySet()).containsExactly(source.getPropertyNames());
+		assertThat(source.getPropertyNames()).isSameAs(source.getPropertyNames());
+		String name = source.getPropertyNames()[0];
+		source.getPropertyNames()[0] = "changed";
+		assertThat(source.getProperties()).containsKey(name).doesNotContainKey("changed");
+		assertThat(source.getProperties().get("missing")).isNull();
+
+		source.setProperties(Collections.singletonMap("a", "10"), source.getZxid());
+
+		assertThat(source.getPropertyNames()).containsExactly("a");
+		assertThat(source.getProperty("a")).isEqualTo("10");
+	}
+
+	@Test
+	void sanitizesKeysBelowTheContext() {
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/app",
+				this.curator);
+
+		assertThat(source.sanitizeKey("/config/app/a/b/c")).isEqualTo("a.b.c");
+		assertThat(source.sanitizeKey("/other/a")).isEqualTo(".other.a");
+	}
+
+	@Test
+	void loadsNothingForAMissingContext() {
+		ZookeeperPropertySource source = new ZookeeperPropertySource("config/missing",
+				this.curator);
+
+		assertThat(source.getPropertyNames()).isEmpty();
+	}
+
+	@Test
+	void preloadsEveryContextOfALocation() throws Exception {
+		create("/config/other/key", "other");
+		ZookeeperPropertySourcePreloader preloader = new ZookeeperPropertySourcePreloader(
+				Arrays.asList("/config/other", "/config/app"), 8);
+
+		ZookeeperPropertySource other = preloader.load("/config/other", this.curator);
+		ZookeeperPropertySource app = preloader.load("/config/app", this.curator);
+
+		assertThat(other.getProperty("key")).isEqualTo("other");
+		assertThat(app.getProperty("a.b")).isEqualTo("2");
+		assertThat(preloader.load("/config/app", this.curator).getPropertyNames())
+				.containsExactly(app.getPropertyNames());
+	}
+
+	@Test
+	void listsAllContextsInOneRoundTrip() {
+		ZookeeperPropertySources sources = new ZookeeperPropertySources(
+				new ZookeeperConfigProperties(), LogFactory.getLog(getClass()));
+		Map<String, List<String>> children = sources.getChildren(
+				Arrays.asList("config/app", "/config/app/parent", "config/app,dev"), this.curator);
+
+		assertThat(children.get("config/app")).contains("a", "empty", "parent", "many");
+		assertThat(children.get("/config/app/parent")).containsExactly("child");
+		assertThat(children.get("config/app,dev")).isEmpty();
+	}
+
+}
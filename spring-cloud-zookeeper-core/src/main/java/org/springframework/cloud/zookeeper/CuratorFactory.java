@@ -57,6 +57,13 @@ public abstract class CuratorFactory {
 		builder.sessionTimeoutMs((int) properties.getSessionTimeout().toMillis())
 				.connectionTimeoutMs((int) properties.getConnectionTimeout().toMillis()).retryPolicy(retryPolicy);
 
+		ZookeeperProperties.Compression compression = properties.getCompression();
+		if (compression != null && compression.isEnabled()) {
+			// every read and write goes through the provider, unmarked data is left as is
+			builder.compressionProvider(new ZookeeperCompressionProvider((int) compression.getThreshold().toBytes()))
+					.enableCompression();
+		}
+
 		Stream<CuratorFrameworkCustomizer> customizers = optionalCuratorFrameworkCustomizerProvider.get();
 		if (customizers != null) {
 			customizers.forEach(curatorFrameworkCustomizer -> curatorFrameworkCustomizer.customize(builder));
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper;
+
+import java.util.Arrays;
+
+import org.apache.curator.framework.api.CompressionProvider;
+import org.apache.curator.framework.imps.GzipCompressionProvider;
+
+/**
+ * {@link CompressionProvider} that gzips the data of at least a threshold size and marks
+ * it with a header. Data without the header is read as is, so znodes written
+ * uncompressed, by this client or by any other, stay readable, and compression can be
+ * enabled on the clients before the writers.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperCompressionProvider implements CompressionProvider {
+
+	// a text value never starts with a NUL
+	private static final byte[] HEADER = { 0, 'Z', 'K', 'Z' };
+
+	private final CompressionProvider delegate = new GzipCompressionProvider();
+
+	private final int threshold;
+
+	/**
+	 * @param threshold the size from which data is compressed
+	 */
+	public ZookeeperCompressionProvider(int threshold) {
+		this.threshold = threshold;
+	}
+
+	@Override
+	public byte[] compress(String path, byte[] data) throws Exception {
+		if (data == null || data.length < this.threshold) {
+			return data;
+		}
+		byte[] compressed = this.delegate.compress(path, data);
+		if (compressed.length + HEADER.length >= data.length) {
+			// not worth it, incompressible data is kept as is
+			return data;
+		}
+		byte[] marked = new byte[HEADER.length + compressed.length];
+		System.arraycopy(HEADER, 0, marked, 0, HEADER.length);
+		System.arraycopy(compressed, 0, marked, HEADER.length, compressed.length);
+		return marked;
+	}
+
+	@Override
+	public byte[] decompress(String path, byte[] compressedData) throws Exception {
+		if (!isCompressed(compressedData)) {
+			return compressedData;
+		}
+		return this.delegate.decompress(path,
+				Arrays.copyOfRange(compressedData, HEADER.length, compressedData.length));
+	}
+
+	/**
+	 * @param data the data of a znode
+	 * @return whether the data was compressed by this provider
+	 */
+	public static boolean isCompressed(byte[] data) {
+		if (data == null || data.length < HEADER.length) {
+			return false;
+		}
+		for (int i = 0; i < HEADER.length; i++) {
+			if (data[i] != HEADER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
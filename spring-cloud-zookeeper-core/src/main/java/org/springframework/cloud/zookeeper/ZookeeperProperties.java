@@ -23,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.convert.DurationUnit;
 import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties related to connecting to Zookeeper.
@@ -89,6 +90,11 @@ public class ZookeeperProperties {
 	@DurationUnit(ChronoUnit.MILLIS)
 	private Duration connectionTimeout = Duration.of(15 * 1000, ChronoUnit.MILLIS);
 
+	/**
+	 * Compression of the data written to and read from Zookeeper.
+	 */
+	private Compression compression = new Compression();
+
 	public String getConnectString() {
 		return this.connectString;
 	}
@@ -162,4 +168,47 @@ public class ZookeeperProperties {
 		this.connectionTimeout = connectionTimeout;
 	}
 
+	public Compression getCompression() {
+		return this.compression;
+	}
+
+	public void setCompression(Compression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Properties of the compression of znode data.
+	 */
+	public static class Compression {
+
+		/**
+		 * Whether the data of at least the threshold size is written compressed, marked
+		 * with a header, and marked data is decompressed when read. Every client reading
+		 * the compressed znodes needs it enabled.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Size from which the data written to a znode is compressed.
+		 */
+		private DataSize threshold = DataSize.ofKilobytes(1);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public DataSize getThreshold() {
+			return this.threshold;
+		}
+
+		public void setThreshold(DataSize threshold) {
+			this.threshold = threshold;
+		}
+
+	}
+
 }
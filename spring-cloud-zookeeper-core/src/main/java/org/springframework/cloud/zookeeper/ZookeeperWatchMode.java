@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper;
+
+/**
+ * How a tree of znodes is watched for changes.
+ *
+ * @since 5.0.3
+ */
+public enum ZookeeperWatchMode {
+
+	/**
+	 * A Curator {@code TreeCache}, which sets a watch on every znode of the tree and
+	 * keeps a copy of all their data.
+	 */
+	TREE_CACHE,
+
+	/**
+	 * A single persistent recursive watch on the root of the tree, reporting created,
+	 * deleted and updated znodes without caching any data. Requires Zookeeper 3.6+.
+	 */
+	PERSISTENT_RECURSIVE,
+
+	/**
+	 * Like {@link #PERSISTENT_RECURSIVE}, but only reporting created and deleted znodes,
+	 * ignoring changes to their data.
+	 */
+	STRUCTURE_ONLY
+
+}
@@ -16,10 +16,18 @@
 
 package org.springframework.cloud.zookeeper;
 
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,4 +42,33 @@ public class CuratorFactoryTests {
 		assertThat(properties.getConnectString()).isEqualTo("myhost:8502");
 	}
 
+	@Test
+	public void testCompression() throws Exception {
+		try (TestingServer server = new TestingServer()) {
+			ZookeeperProperties properties = new ZookeeperProperties();
+			properties.setConnectString(server.getConnectString());
+			properties.getCompression().setEnabled(true);
+			properties.getCompression().setThreshold(DataSize.ofBytes(64));
+			byte[] large = "value ".repeat(100).getBytes(StandardCharsets.UTF_8);
+			byte[] small = "value".getBytes(StandardCharsets.UTF_8);
+
+			try (CuratorFramework curator = CuratorFactory.curatorFramework(properties,
+					new RetryOneTime(100), Stream::empty, () -> null, () -> null);
+					CuratorFramework raw = CuratorFrameworkFactory
+							.newClient(server.getConnectString(), new RetryOneTime(100))) {
+				raw.start();
+				curator.create().forPath("/large", large);
+				curator.create().forPath("/small", small);
+				raw.create().forPath("/legacy", large);
+
+				assertThat(curator.getData().forPath("/large")).isEqualTo(large);
+				assertThat(curator.getData().forPath("/legacy")).isEqualTo(large);
+				assertThat(raw.getData().forPath("/small")).isEqualTo(small);
+				byte[] stored = raw.getData().forPath("/large");
+				assertThat(ZookeeperCompressionProvider.isCompressed(stored)).isTrue();
+				assertThat(stored.length).isLessThan(large.length);
+			}
+		}
+	}
+
 }
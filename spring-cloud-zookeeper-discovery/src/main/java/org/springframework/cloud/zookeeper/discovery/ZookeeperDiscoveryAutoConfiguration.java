@@ -18,22 +18,27 @@ package org.springframework.cloud.zookeeper.discovery;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
 
 import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.RuntimeHints;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.health.autoconfigure.contributor.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.health.contributor.HealthIndicator;
 import org.springframework.cloud.client.CommonsClientAutoConfiguration;
 import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
 import org.springframework.cloud.commons.util.InetUtils;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
+import org.springframework.cloud.zookeeper.support.DefaultServiceDiscoveryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.ClassUtils;
@@ -65,6 +70,27 @@ public class ZookeeperDiscoveryAutoConfiguration {
 		return new ZookeeperServiceWatch(curator, zookeeperDiscoveryProperties);
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.cloud.zookeeper.discovery.cache-enabled", havingValue = "true")
+	// the cache watches the discovery root, which only the default customizer is
+	// guaranteed to use as base path
+	@ConditionalOnBean(DefaultServiceDiscoveryCustomizer.class)
+	public ZookeeperServiceInstanceCache zookeeperServiceInstanceCache(
+			InstanceSerializer<ZookeeperInstance> instanceSerializer,
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		return new ZookeeperServiceInstanceCache(curator, instanceSerializer,
+				zookeeperDiscoveryProperties);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.cloud.zookeeper.discovery.service-name-index-enabled", havingValue = "true")
+	public ZookeeperServiceNameIndex zookeeperServiceNameIndex(
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		return new ZookeeperServiceNameIndex(curator, zookeeperDiscoveryProperties);
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	@ConditionalOnClass({ Endpoint.class, HealthIndicator.class })
 	protected static class ZookeeperDiscoveryHealthConfig {
@@ -78,9 +104,11 @@ public class ZookeeperDiscoveryAutoConfiguration {
 		public ZookeeperDiscoveryHealthIndicator zookeeperDiscoveryHealthIndicator(
 				CuratorFramework curatorFramework,
 				ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
-				ZookeeperDiscoveryProperties properties) {
+				ZookeeperDiscoveryProperties properties,
+				ObjectProvider<ZookeeperServiceInstanceFetcher> instanceFetcher) {
 			return new ZookeeperDiscoveryHealthIndicator(curatorFramework,
-					serviceDiscovery, zookeeperDependencies, properties);
+					serviceDiscovery, zookeeperDependencies, properties,
+					instanceFetcher.getIfAvailable());
 		}
 
 	}
@@ -51,12 +51,60 @@ public class ZookeeperDiscoveryClient implements DiscoveryClient {
 
 	private final ZookeeperDiscoveryProperties zookeeperDiscoveryProperties;
 
+	private final ZookeeperServiceInstanceFetcher instanceFetcher;
+
+	private final ZookeeperServiceInstanceCache instanceCache;
+
+	private final ZookeeperServiceNameIndex serviceNameIndex;
+
 	public ZookeeperDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
 			ZookeeperDependencies zookeeperDependencies,
 			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		this(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties, null,
+				null, null);
+	}
+
+	/**
+	 * @param serviceDiscovery the Curator service discovery
+	 * @param zookeeperDependencies the dependencies used to resolve aliases, may be null
+	 * @param zookeeperDiscoveryProperties the discovery properties
+	 * @param instanceFetcher the fetcher used to read instances, or {@code null} to use
+	 * {@link ServiceDiscovery#queryForInstances(String)}
+	 * @param instanceCache the cache to serve instances from, or {@code null} to always
+	 * query Zookeeper
+	 */
+	public ZookeeperDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies,
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher,
+			ZookeeperServiceInstanceCache instanceCache) {
+		this(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties,
+				instanceFetcher, instanceCache, null);
+	}
+
+	/**
+	 * @param serviceDiscovery the Curator service discovery
+	 * @param zookeeperDependencies the dependencies used to resolve aliases, may be null
+	 * @param zookeeperDiscoveryProperties the discovery properties
+	 * @param instanceFetcher the fetcher used to read instances, or {@code null} to use
+	 * {@link ServiceDiscovery#queryForInstances(String)}
+	 * @param instanceCache the cache to serve instances from, or {@code null} to always
+	 * query Zookeeper
+	 * @param serviceNameIndex the index to list services and to skip lookups of unknown
+	 * services with, or {@code null} to always query Zookeeper
+	 */
+	public ZookeeperDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies,
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher,
+			ZookeeperServiceInstanceCache instanceCache,
+			ZookeeperServiceNameIndex serviceNameIndex) {
 		this.serviceDiscovery = serviceDiscovery;
 		this.zookeeperDependencies = zookeeperDependencies;
 		this.zookeeperDiscoveryProperties = zookeeperDiscoveryProperties;
+		this.instanceFetcher = instanceFetcher;
+		this.instanceCache = instanceCache;
+		this.serviceNameIndex = serviceNameIndex;
 	}
 
 	@Override
@@ -69,6 +117,12 @@ public class ZookeeperDiscoveryClient implements DiscoveryClient {
 		return new ZookeeperServiceInstance(serviceId, serviceInstance);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The returned list is unmodifiable, whether the instances come from the instance
+	 * cache, the instance fetcher or the service discovery.
+	 */
 	@Override
 	public List<org.springframework.cloud.client.ServiceInstance> getInstances(
 			final String serviceId) {
@@ -77,13 +131,28 @@ public class ZookeeperDiscoveryClient implements DiscoveryClient {
 				return Collections.EMPTY_LIST;
 			}
 			String serviceIdToQuery = getServiceIdToQuery(serviceId);
+			if (this.serviceNameIndex != null
+					&& this.serviceNameIndex.isAbsent(serviceIdToQuery)) {
+				return Collections.emptyList();
+			}
+			if (this.instanceCache != null) {
+				List<org.springframework.cloud.client.ServiceInstance> cached = this.instanceCache
+						.getInstances(serviceIdToQuery);
+				if (cached != null) {
+					return cached;
+				}
+			}
+			if (this.instanceFetcher != null) {
+				// the fetcher already returns a new list
+				return Collections.unmodifiableList(this.instanceFetcher.getInstances(serviceIdToQuery));
+			}
 			Collection<ServiceInstance<ZookeeperInstance>> zkInstances = getServiceDiscovery()
 					.queryForInstances(serviceIdToQuery);
 			List<org.springframework.cloud.client.ServiceInstance> instances = new ArrayList<>();
 			for (ServiceInstance<ZookeeperInstance> instance : zkInstances) {
 				instances.add(createServiceInstance(serviceIdToQuery, instance));
 			}
-			return instances;
+			return Collections.unmodifiableList(instances);
 		}
 		catch (KeeperException.NoNodeException e) {
 			if (log.isDebugEnabled()) {
@@ -97,7 +166,7 @@ public class ZookeeperDiscoveryClient implements DiscoveryClient {
 		catch (Exception exception) {
 			rethrowRuntimeException(exception);
 		}
-		return new ArrayList<>();
+		return Collections.emptyList();
 	}
 
 	private ServiceDiscovery<ZookeeperInstance> getServiceDiscovery() {
@@ -121,6 +190,12 @@ public class ZookeeperDiscoveryClient implements DiscoveryClient {
 					"Service Discovery is not yet ready - returning empty list of services");
 			return Collections.emptyList();
 		}
+		if (this.serviceNameIndex != null) {
+			List<String> names = this.serviceNameIndex.getNames();
+			if (names != null) {
+				return new ArrayList<>(names);
+			}
+		}
 		try {
 			Collection<String> names = getServiceDiscovery().queryForNames();
 			if (names == null) {
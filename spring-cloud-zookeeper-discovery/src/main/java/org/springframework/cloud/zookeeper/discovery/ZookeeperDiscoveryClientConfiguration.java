@@ -18,6 +18,7 @@ package org.springframework.cloud.zookeeper.discovery;
 
 import org.apache.curator.x.discovery.ServiceDiscovery;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -51,9 +52,13 @@ public class ZookeeperDiscoveryClientConfiguration {
 	// ZookeeperServiceDiscovery is gone
 	public ZookeeperDiscoveryClient zookeeperDiscoveryClient(
 			ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
-			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ObjectProvider<ZookeeperServiceInstanceFetcher> instanceFetcher,
+			ObjectProvider<ZookeeperServiceInstanceCache> instanceCache,
+			ObjectProvider<ZookeeperServiceNameIndex> serviceNameIndex) {
 		return new ZookeeperDiscoveryClient(serviceDiscovery, zookeeperDependencies,
-				zookeeperDiscoveryProperties);
+				zookeeperDiscoveryProperties, instanceFetcher.getIfAvailable(),
+				instanceCache.getIfAvailable(), serviceNameIndex.getIfAvailable());
 	}
 
 	@Bean
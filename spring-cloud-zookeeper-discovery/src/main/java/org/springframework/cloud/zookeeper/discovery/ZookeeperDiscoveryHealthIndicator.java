@@ -16,6 +16,12 @@
 
 package org.springframework.cloud.zookeeper.discovery;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.curator.framework.CuratorFramework;
@@ -23,17 +29,28 @@ import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.ServiceInstance;
 
 import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
 import org.springframework.cloud.client.discovery.health.DiscoveryHealthIndicator;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
+import org.springframework.cloud.zookeeper.support.StatusConstants;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.StringUtils;
 
 /**
  * {@link org.springframework.boot.health.contributor.HealthIndicator} that presents the
- * status of all instances registered in Zookeeper.
+ * status of all instances registered in Zookeeper. By default only the number of
+ * instances per service and status is reported. The result is reused until the
+ * {@link ZookeeperServiceWatch} reports a change in the registry, which only marks it
+ * stale: it is rebuilt at most once per
+ * {@link ZookeeperDiscoveryProperties#getHealthMaxAge()}, by a single caller at a time,
+ * so that a churning registry isn't walked on every call.
  *
  * @author Spencer Gibb
  * @since 1.0.0
  */
-public class ZookeeperDiscoveryHealthIndicator implements DiscoveryHealthIndicator {
+public class ZookeeperDiscoveryHealthIndicator
+		implements DiscoveryHealthIndicator, ApplicationListener<HeartbeatEvent> {
 
 	private static final Log log = LogFactory
 			.getLog(ZookeeperDiscoveryHealthIndicator.class);
@@ -46,14 +63,32 @@ public class ZookeeperDiscoveryHealthIndicator implements DiscoveryHealthIndicat
 
 	private final ZookeeperDiscoveryProperties zookeeperDiscoveryProperties;
 
+	private final ZookeeperServiceInstanceFetcher instanceFetcher;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final Object rebuildLock = new Object();
+
+	private volatile CachedHealth cached;
+
 	public ZookeeperDiscoveryHealthIndicator(CuratorFramework curatorFramework,
 			ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
 			ZookeeperDependencies zookeeperDependencies,
 			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		this(curatorFramework, serviceDiscovery, zookeeperDependencies,
+				zookeeperDiscoveryProperties, null);
+	}
+
+	public ZookeeperDiscoveryHealthIndicator(CuratorFramework curatorFramework,
+			ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies,
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher) {
 		this.curatorFramework = curatorFramework;
 		this.serviceDiscovery = serviceDiscovery;
 		this.zookeeperDependencies = zookeeperDependencies;
 		this.zookeeperDiscoveryProperties = zookeeperDiscoveryProperties;
+		this.instanceFetcher = instanceFetcher;
 	}
 
 	@Override
@@ -61,14 +96,57 @@ public class ZookeeperDiscoveryHealthIndicator implements DiscoveryHealthIndicat
 		return "zookeeper";
 	}
 
+	@Override
+	public void onApplicationEvent(HeartbeatEvent event) {
+		if (event.getSource() instanceof ZookeeperServiceWatch) {
+			// the registry changed, the view is stale
+			this.generation.incrementAndGet();
+		}
+	}
+
 	@Override
 	public Health health() {
+		CachedHealth cached = this.cached;
+		if (isReusable(cached)) {
+			return cached.health;
+		}
+		synchronized (this.rebuildLock) {
+			cached = this.cached;
+			// rebuilt by another caller meanwhile
+			if (isReusable(cached)) {
+				return cached.health;
+			}
+			long generation = this.generation.get();
+			Health health = buildHealth();
+			// failures are never reused so that recovery is reported straight away
+			this.cached = Status.UP.equals(health.getStatus())
+					? new CachedHealth(health, generation, System.nanoTime()) : null;
+			return health;
+		}
+	}
+
+	private boolean isReusable(CachedHealth cached) {
+		if (cached == null || !this.curatorFramework.getZookeeperClient().isConnected()) {
+			return false;
+		}
+		return cached.generation == this.generation.get()
+				|| System.nanoTime() - cached.timestamp < this.zookeeperDiscoveryProperties
+						.getHealthMaxAge().toNanos();
+	}
+
+	private Health buildHealth() {
 		Health.Builder builder = Health.unknown();
 		try {
 			Iterable<ServiceInstance<ZookeeperInstance>> allInstances = new ZookeeperServiceInstances(
 					this.curatorFramework, this.serviceDiscovery,
-					this.zookeeperDependencies, this.zookeeperDiscoveryProperties);
-			builder.up().withDetail("services", allInstances);
+					this.zookeeperDependencies, this.zookeeperDiscoveryProperties,
+					this.instanceFetcher);
+			if (this.zookeeperDiscoveryProperties.isHealthIncludeInstances()) {
+				builder.up().withDetail("services", allInstances);
+			}
+			else {
+				builder.up().withDetail("services", summarize(allInstances));
+			}
 		}
 		catch (Exception e) {
 			log.error("Error", e);
@@ -78,4 +156,42 @@ public class ZookeeperDiscoveryHealthIndicator implements DiscoveryHealthIndicat
 		return builder.build();
 	}
 
+	private Map<String, Map<String, Integer>> summarize(
+			Iterable<ServiceInstance<ZookeeperInstance>> instances) {
+		Map<String, Map<String, Integer>> services = new TreeMap<>();
+		for (ServiceInstance<ZookeeperInstance> instance : instances) {
+			Map<String, Integer> summary = services.computeIfAbsent(instance.getName(),
+					name -> new LinkedHashMap<>());
+			summary.merge("instances", 1, Integer::sum);
+			summary.merge(getStatus(instance), 1, Integer::sum);
+		}
+		return services;
+	}
+
+	private String getStatus(ServiceInstance<ZookeeperInstance> instance) {
+		ZookeeperInstance payload = instance.getPayload();
+		String status = null;
+		if (payload != null && payload.getMetadata() != null) {
+			status = payload.getMetadata().get(StatusConstants.INSTANCE_STATUS_KEY);
+		}
+		return StringUtils.hasText(status) ? status.toUpperCase(Locale.ROOT)
+				: StatusConstants.STATUS_UP;
+	}
+
+	private static final class CachedHealth {
+
+		private final Health health;
+
+		private final long generation;
+
+		private final long timestamp;
+
+		CachedHealth(Health health, long generation, long timestamp) {
+			this.health = health;
+			this.generation = generation;
+			this.timestamp = timestamp;
+		}
+
+	}
+
 }
@@ -16,11 +16,13 @@
 
 package org.springframework.cloud.zookeeper.discovery;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.commons.util.InetUtils;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
 import org.springframework.cloud.zookeeper.support.StatusConstants;
 import org.springframework.util.StringUtils;
 
@@ -105,6 +107,57 @@ public class ZookeeperDiscoveryProperties {
 	 */
 	private int order = 0;
 
+	/**
+	 * Serve instances from a watch-backed in-memory cache instead of querying Zookeeper
+	 * on every lookup.
+	 */
+	private boolean cacheEnabled = false;
+
+	/**
+	 * Maximum number of instance reads kept in flight when fetching the instances of a
+	 * service.
+	 */
+	private int instanceFetchConcurrency = 32;
+
+	/**
+	 * Register this instance using the compact binary encoding instead of JSON. Both
+	 * encodings are always read; only enable this once every instance reading the
+	 * registry supports the compact encoding.
+	 */
+	private boolean compactSerialization = false;
+
+	/**
+	 * How often at most the health indicator reads the status of the registry again once
+	 * the service watch reports a change. Without changes the status is reused, and it is
+	 * read on every call while the connection is lost.
+	 */
+	private Duration healthMaxAge = Duration.ofSeconds(30);
+
+	/**
+	 * Report every registered instance in the health details instead of the number of
+	 * instances per service and status.
+	 */
+	private boolean healthIncludeInstances = false;
+
+	/**
+	 * Window within which changes seen by the service watch are published as a single
+	 * heartbeat event. Zero publishes one event per change.
+	 */
+	private Duration heartbeatCoalesceWindow = Duration.ZERO;
+
+	/**
+	 * How the service watch observes the discovery root. Persistent recursive watches
+	 * require Zookeeper 3.6+.
+	 */
+	private ZookeeperWatchMode watchMode = ZookeeperWatchMode.TREE_CACHE;
+
+	/**
+	 * Keep the names of the registered services in memory, watching the discovery root,
+	 * to list the services and to answer lookups of unknown services without querying
+	 * Zookeeper.
+	 */
+	private boolean serviceNameIndexEnabled = false;
+
 	// Visible for Testing
 	protected ZookeeperDiscoveryProperties() {
 	}
@@ -216,6 +269,70 @@ public class ZookeeperDiscoveryProperties {
 		this.order = order;
 	}
 
+	public boolean isCacheEnabled() {
+		return this.cacheEnabled;
+	}
+
+	public void setCacheEnabled(boolean cacheEnabled) {
+		this.cacheEnabled = cacheEnabled;
+	}
+
+	public int getInstanceFetchConcurrency() {
+		return this.instanceFetchConcurrency;
+	}
+
+	public void setInstanceFetchConcurrency(int instanceFetchConcurrency) {
+		this.instanceFetchConcurrency = instanceFetchConcurrency;
+	}
+
+	public boolean isCompactSerialization() {
+		return this.compactSerialization;
+	}
+
+	public void setCompactSerialization(boolean compactSerialization) {
+		this.compactSerialization = compactSerialization;
+	}
+
+	public Duration getHealthMaxAge() {
+		return this.healthMaxAge;
+	}
+
+	public void setHealthMaxAge(Duration healthMaxAge) {
+		this.healthMaxAge = healthMaxAge;
+	}
+
+	public boolean isHealthIncludeInstances() {
+		return this.healthIncludeInstances;
+	}
+
+	public void setHealthIncludeInstances(boolean healthIncludeInstances) {
+		this.healthIncludeInstances = healthIncludeInstances;
+	}
+
+	public Duration getHeartbeatCoalesceWindow() {
+		return this.heartbeatCoalesceWindow;
+	}
+
+	public void setHeartbeatCoalesceWindow(Duration heartbeatCoalesceWindow) {
+		this.heartbeatCoalesceWindow = heartbeatCoalesceWindow;
+	}
+
+	public ZookeeperWatchMode getWatchMode() {
+		return this.watchMode;
+	}
+
+	public void setWatchMode(ZookeeperWatchMode watchMode) {
+		this.watchMode = watchMode;
+	}
+
+	public boolean isServiceNameIndexEnabled() {
+		return this.serviceNameIndexEnabled;
+	}
+
+	public void setServiceNameIndexEnabled(boolean serviceNameIndexEnabled) {
+		this.serviceNameIndexEnabled = serviceNameIndexEnabled;
+	}
+
 	@Override
 	public String toString() {
 		return "ZookeeperDiscoveryProperties{" + "enabled=" + this.enabled + ", root='"
@@ -224,7 +341,14 @@ public class ZookeeperDiscoveryProperties {
 				+ this.instanceHost + '\'' + ", instancePort='" + this.instancePort + '\''
 				+ ", instanceSslPort='" + this.instanceSslPort + '\'' + ", metadata="
 				+ this.metadata + ", register=" + this.register + ", initialStatus="
-				+ this.initialStatus + ", order=" + this.order + '}';
+				+ this.initialStatus + ", order=" + this.order + ", cacheEnabled="
+				+ this.cacheEnabled + ", instanceFetchConcurrency="
+				+ this.instanceFetchConcurrency + ", compactSerialization="
+				+ this.compactSerialization + ", healthMaxAge=" + this.healthMaxAge
+				+ ", healthIncludeInstances=" + this.healthIncludeInstances
+				+ ", heartbeatCoalesceWindow=" + this.heartbeatCoalesceWindow
+				+ ", watchMode=" + this.watchMode + ", serviceNameIndexEnabled="
+				+ this.serviceNameIndexEnabled + '}';
 	}
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.Set;
+
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+
+/**
+ * {@link HeartbeatEvent} published by {@link ZookeeperServiceWatch} that also carries
+ * the ids of the services whose registrations changed, so that listeners can
+ * invalidate only those services.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperHeartbeatEvent extends HeartbeatEvent {
+
+	private final Set<String> serviceIds;
+
+	/**
+	 * @param source the source of the event
+	 * @param state the value of the change counter
+	 * @param serviceIds the ids of the changed services
+	 */
+	public ZookeeperHeartbeatEvent(Object source, Object state, Set<String> serviceIds) {
+		super(source, state);
+		this.serviceIds = serviceIds;
+	}
+
+	/**
+	 * @return the ids of the services whose registrations changed, relative to the
+	 * discovery root, or an empty set if the changed services are not known and all of
+	 * them should be considered changed
+	 */
+	public Set<String> getServiceIds() {
+		return this.serviceIds;
+	}
+
+}
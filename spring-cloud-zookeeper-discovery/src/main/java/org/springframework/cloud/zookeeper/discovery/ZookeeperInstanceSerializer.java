@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.apache.curator.x.discovery.ServiceType;
+import org.apache.curator.x.discovery.UriSpec;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+
+/**
+ * {@link InstanceSerializer} that can write instances in a compact binary encoding
+ * instead of the JSON written by {@link JsonInstanceSerializer}. The encoding starts
+ * with a header that can't start a JSON document, followed by a version, so both
+ * encodings are always read. This lets a fleet be migrated gradually: instances are
+ * first deployed reading both encodings while still writing JSON, and compact writes
+ * are only enabled once every reader supports them.
+ * <p>
+ * Compact payloads are read without reflection and don't repeat the instance id and
+ * service name in the {@link ZookeeperInstance} payload when they match the envelope.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperInstanceSerializer implements InstanceSerializer<ZookeeperInstance> {
+
+	private static final byte[] HEADER = { 0, 'Z', 'K', 'I' };
+
+	private static final byte VERSION = 1;
+
+	private static final int ADDRESS = 1;
+
+	private static final int PORT = 1 << 1;
+
+	private static final int SSL_PORT = 1 << 2;
+
+	private static final int URI_SPEC = 1 << 3;
+
+	private static final int ENABLED = 1 << 4;
+
+	private static final int PAYLOAD = 1 << 5;
+
+	private static final int PAYLOAD_ID_IS_ID = 1 << 6;
+
+	private static final int PAYLOAD_NAME_IS_NAME = 1 << 7;
+
+	private final JsonInstanceSerializer<ZookeeperInstance> jsonSerializer = new JsonInstanceSerializer<>(
+			ZookeeperInstance.class);
+
+	private final boolean compact;
+
+	/**
+	 * @param compact whether to write the compact encoding rather than JSON
+	 */
+	public ZookeeperInstanceSerializer(boolean compact) {
+		this.compact = compact;
+	}
+
+	/**
+	 * Returns whether the given data is in the compact encoding.
+	 * @param bytes the serialized instance
+	 * @return {@code true} if the data starts with the compact header
+	 */
+	public static boolean isCompact(byte[] bytes) {
+		if (bytes == null || bytes.length < HEADER.length + 1) {
+			return false;
+		}
+		for (int i = 0; i < HEADER.length; i++) {
+			if (bytes[i] != HEADER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public byte[] serialize(ServiceInstance<ZookeeperInstance> instance) throws Exception {
+		if (!this.compact) {
+			return this.jsonSerializer.serialize(instance);
+		}
+		ZookeeperInstance payload = instance.getPayload();
+		int flags = 0;
+		flags |= instance.getAddress() != null ? ADDRESS : 0;
+		flags |= instance.getPort() != null ? PORT : 0;
+		flags |= instance.getSslPort() != null ? SSL_PORT : 0;
+		flags |= instance.getUriSpec() != null ? URI_SPEC : 0;
+		flags |= instance.isEnabled() ? ENABLED : 0;
+		if (payload != null) {
+			flags |= PAYLOAD;
+			flags |= payload.getId() != null && payload.getId().equals(instance.getId())
+					? PAYLOAD_ID_IS_ID : 0;
+			flags |= payload.getName() != null && payload.getName().equals(instance.getName())
+					? PAYLOAD_NAME_IS_NAME : 0;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(HEADER);
+		out.writeByte(VERSION);
+		out.writeByte(flags);
+		writeString(out, instance.getName());
+		writeString(out, instance.getId());
+		if ((flags & ADDRESS) != 0) {
+			writeString(out, instance.getAddress());
+		}
+		if ((flags & PORT) != 0) {
+			out.writeInt(instance.getPort());
+		}
+		if ((flags & SSL_PORT) != 0) {
+			out.writeInt(instance.getSslPort());
+		}
+		out.writeLong(instance.getRegistrationTimeUTC());
+		writeString(out, instance.getServiceType() != null
+				? instance.getServiceType().name() : null);
+		if ((flags & URI_SPEC) != 0) {
+			List<UriSpec.Part> parts = instance.getUriSpec().getParts();
+			out.writeInt(parts.size());
+			for (UriSpec.Part part : parts) {
+				out.writeBoolean(part.isVariable());
+				writeString(out, part.getValue());
+			}
+		}
+		if ((flags & PAYLOAD) != 0) {
+			if ((flags & PAYLOAD_ID_IS_ID) == 0) {
+				writeString(out, payload.getId());
+			}
+			if ((flags & PAYLOAD_NAME_IS_NAME) == 0) {
+				writeString(out, payload.getName());
+			}
+			Map<String, String> metadata = payload.getMetadata();
+			out.writeInt(metadata != null ? metadata.size() : -1);
+			if (metadata != null) {
+				for (Map.Entry<String, String> entry : metadata.entrySet()) {
+					writeString(out, entry.getKey());
+					writeString(out, entry.getValue());
+				}
+			}
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public ServiceInstance<ZookeeperInstance> deserialize(byte[] bytes) throws Exception {
+		if (!isCompact(bytes)) {
+			return this.jsonSerializer.deserialize(bytes);
+		}
+		try {
+			return readCompact(ByteBuffer.wrap(bytes, HEADER.length, bytes.length - HEADER.length));
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Truncated compact instance payload", e);
+		}
+	}
+
+	private ServiceInstance<ZookeeperInstance> readCompact(ByteBuffer in) throws IOException {
+		byte version = in.get();
+		if (version != VERSION) {
+			throw new IOException("Unsupported compact instance payload version " + version);
+		}
+		int flags = in.get() & 0xFF;
+		String name = readString(in);
+		String id = readString(in);
+		String address = (flags & ADDRESS) != 0 ? readString(in) : null;
+		Integer port = (flags & PORT) != 0 ? in.getInt() : null;
+		Integer sslPort = (flags & SSL_PORT) != 0 ? in.getInt() : null;
+		long registrationTimeUTC = in.getLong();
+		String serviceType = readString(in);
+		UriSpec uriSpec = null;
+		if ((flags & URI_SPEC) != 0) {
+			uriSpec = new UriSpec();
+			int count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				boolean variable = in.get() != 0;
+				uriSpec.add(new UriSpec.Part(readString(in), variable));
+			}
+		}
+		ZookeeperInstance payload = null;
+		if ((flags & PAYLOAD) != 0) {
+			String payloadId = (flags & PAYLOAD_ID_IS_ID) != 0 ? id : readString(in);
+			String payloadName = (flags & PAYLOAD_NAME_IS_NAME) != 0 ? name : readString(in);
+			int count = in.getInt();
+			Map<String, String> metadata = null;
+			if (count >= 0) {
+				metadata = new LinkedHashMap<>((int) (count / 0.75f) + 1);
+				for (int i = 0; i < count; i++) {
+					metadata.put(readString(in), readString(in));
+				}
+			}
+			payload = new ZookeeperInstance(payloadId, payloadName, metadata);
+		}
+		return new ServiceInstance<>(name, id, address, port, sslPort, payload,
+				registrationTimeUTC,
+				serviceType != null ? ServiceType.valueOf(serviceType) : null, uriSpec,
+				(flags & ENABLED) != 0);
+	}
+
+	private static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+				StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+}
@@ -32,7 +32,9 @@ import org.springframework.core.env.Environment;
 
 /**
  * Zookeeper-specific {@link ServiceInstanceListSupplier} that provides a delegate that
- * filters available instances based on status retrieved from Zookeeper.
+ * filters available instances based on status retrieved from Zookeeper. When the
+ * {@link ZookeeperServiceInstanceCache} is enabled, the instances are pushed from its
+ * watches instead of being retrieved through the {@link DiscoveryClient}.
  *
  * @author Olga Maciaszek-Sharma
  * @since 3.0.0
@@ -51,6 +53,13 @@ public class ZookeeperLoadBalancerConfiguration {
 				discoveryClient, env);
 		ZookeeperServiceInstanceListSupplier secondDelegate = new ZookeeperServiceInstanceListSupplier(firstDelegate,
 				zookeeperDependencies);
+		ZookeeperServiceInstanceCache instanceCache = context
+				.getBeanProvider(ZookeeperServiceInstanceCache.class).getIfAvailable();
+		if (instanceCache != null) {
+			// instances are pushed on change, no need for a TTL cache in front
+			return new ZookeeperWatchingServiceInstanceListSupplier(secondDelegate.getServiceId(),
+					instanceCache, secondDelegate);
+		}
 		ObjectProvider<LoadBalancerCacheManager> cacheManagerProvider = context
 				.getBeanProvider(LoadBalancerCacheManager.class);
 		if (cacheManagerProvider.getIfAvailable() != null) {
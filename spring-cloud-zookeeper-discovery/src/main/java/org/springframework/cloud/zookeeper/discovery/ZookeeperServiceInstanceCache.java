@@ -0,0 +1,361 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Watch-backed cache of the instances registered under a service id. A
+ * {@link CuratorCache} is lazily started for a registered service the first time it is
+ * looked up, and closed once the service is removed unless it has listeners. Until the
+ * cache is initialized, lookups return {@code null} so that callers query Zookeeper
+ * directly rather than wait for it. The converted instances are kept as an immutable
+ * snapshot, already partitioned by status, that is only rebuilt when the children or the
+ * data of the service znode change, so repeated lookups neither touch Zookeeper nor
+ * allocate.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperServiceInstanceCache implements Closeable {
+
+	private static final Log log = LogFactory.getLog(ZookeeperServiceInstanceCache.class);
+
+	/**
+	 * How long a service found not to be registered isn't checked again.
+	 */
+	private static final long ABSENT_TTL = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Number of services remembered as absent above which the expired ones are dropped.
+	 */
+	private static final int MAX_ABSENT = 1024;
+
+	private final CuratorFramework curator;
+
+	private final ZookeeperServiceInstanceConverter converter;
+
+	private final ZookeeperDiscoveryProperties properties;
+
+	private final ConcurrentMap<String, ServiceCache> caches = new ConcurrentHashMap<>();
+
+	// when each service found not to be registered may be checked again
+	private final ConcurrentMap<String, Long> absent = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	public ZookeeperServiceInstanceCache(CuratorFramework curator,
+			InstanceSerializer<ZookeeperInstance> serializer,
+			ZookeeperDiscoveryProperties properties) {
+		this.curator = curator;
+		this.converter = new ZookeeperServiceInstanceConverter(serializer);
+		this.properties = properties;
+	}
+
+	/**
+	 * Returns the cached instances of the given service, starting a watch for it if this
+	 * is the first lookup.
+	 * @param serviceId the service id (already resolved from any dependency alias)
+	 * @return an immutable snapshot of the instances or {@code null} if the service
+	 * isn't registered or its cache isn't initialized, and the caller should query
+	 * Zookeeper directly
+	 */
+	public List<ServiceInstance> getInstances(String serviceId) {
+		ZookeeperServiceInstanceSnapshot snapshot = getSnapshot(serviceId);
+		return snapshot != null ? snapshot.getAll() : null;
+	}
+
+	/**
+	 * Returns the cached instances of the given service partitioned by status, starting a
+	 * watch for it if this is the first lookup.
+	 * @param serviceId the service id (already resolved from any dependency alias)
+	 * @return the snapshot or {@code null} if the service isn't registered or its cache
+	 * isn't initialized, and the caller should query Zookeeper directly
+	 * @see #getInstances(String)
+	 */
+	public ZookeeperServiceInstanceSnapshot getSnapshot(String serviceId) {
+		if (this.closed.get()) {
+			return null;
+		}
+		ServiceCache cache = this.caches.get(serviceId);
+		if (cache == null) {
+			// a lookup for any id would otherwise leave a watch behind
+			if (!exists(serviceId)) {
+				return null;
+			}
+			cache = this.caches.computeIfAbsent(serviceId, ServiceCache::new);
+		}
+		if (!cache.start()) {
+			this.caches.remove(serviceId, cache);
+			return null;
+		}
+		return cache.initialized && !cache.failed ? cache.snapshot : null;
+	}
+
+	/**
+	 * Checks whether the service is registered, remembering for a while that it isn't so
+	 * that repeated lookups of an unknown service don't each cost a round trip.
+	 */
+	private boolean exists(String serviceId) {
+		long now = System.nanoTime();
+		Long recheckAt = this.absent.get(serviceId);
+		if (recheckAt != null && now - recheckAt < 0) {
+			return false;
+		}
+		boolean exists;
+		try {
+			exists = this.curator.checkExists()
+					.forPath(ZKPaths.makePath(this.properties.getRoot(), serviceId)) != null;
+		}
+		catch (Exception e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Unable to check whether [" + serviceId + "] is registered", e);
+			}
+			exists = false;
+		}
+		if (exists) {
+			this.absent.remove(serviceId);
+		}
+		else {
+			if (this.absent.size() >= MAX_ABSENT) {
+				this.absent.values().removeIf(at -> now - at >= 0);
+			}
+			this.absent.put(serviceId, now + ABSENT_TTL);
+		}
+		return exists;
+	}
+
+	/**
+	 * Registers a listener for the instances of the given service, starting a watch for
+	 * it if needed. The listener is called with the current snapshot if the cache is
+	 * already initialized and then every time the snapshot is rebuilt, never with an older
+	 * snapshot than the last one. It may be called twice with the same snapshot and is
+	 * mostly called on the Zookeeper event thread, so it must not block.
+	 * @param serviceId the service id (already resolved from any dependency alias)
+	 * @param listener the listener to notify
+	 * @return {@code false} if the cache for this service could not be started, in which
+	 * case the listener is not registered
+	 */
+	public boolean addListener(String serviceId, Listener listener) {
+		while (!this.closed.get()) {
+			ServiceCache cache = this.caches.computeIfAbsent(serviceId, ServiceCache::new);
+			if (!cache.start()) {
+				this.caches.remove(serviceId, cache);
+				return false;
+			}
+			if (cache.addListener(listener)) {
+				return true;
+			}
+			// the cache was closed as the service was removed, start a new one
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a listener registered with {@link #addListener(String, Listener)}.
+	 * @param serviceId the service id the listener was registered for
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(String serviceId, Listener listener) {
+		ServiceCache cache = this.caches.get(serviceId);
+		if (cache != null) {
+			cache.listeners.remove(listener);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.closed.compareAndSet(false, true)) {
+			for (ServiceCache cache : this.caches.values()) {
+				cache.close();
+			}
+			this.caches.clear();
+		}
+	}
+
+	/**
+	 * Callback notified when the cached instances of a service change.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+
+		/**
+		 * Called with the new snapshot of the instances of a service.
+		 * @param serviceId the service id
+		 * @param snapshot the instances partitioned by status
+		 */
+		void instancesChanged(String serviceId, ZookeeperServiceInstanceSnapshot snapshot);
+
+	}
+
+	private final class ServiceCache implements CuratorCacheListener {
+
+		private final String serviceId;
+
+		private final String path;
+
+		private final CuratorCache cache;
+
+		private final AtomicBoolean started = new AtomicBoolean(false);
+
+		private volatile boolean initialized;
+
+		private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+		private volatile boolean failed;
+
+		private boolean stopped;
+
+		private volatile ZookeeperServiceInstanceSnapshot snapshot = ZookeeperServiceInstanceSnapshot
+				.empty();
+
+		ServiceCache(String serviceId) {
+			this.serviceId = serviceId;
+			this.path = ZKPaths.makePath(properties.getRoot(), serviceId);
+			this.cache = CuratorCache.build(curator, this.path);
+			this.cache.listenable().addListener(this);
+		}
+
+		boolean start() {
+			if (this.started.compareAndSet(false, true)) {
+				try {
+					this.cache.start();
+				}
+				catch (Exception e) {
+					log.warn("Unable to start instance cache for [" + this.serviceId + "]", e);
+					this.failed = true;
+				}
+			}
+			return !this.failed;
+		}
+
+		/**
+		 * Adds a listener and hands it the current snapshot, under the lock the snapshot
+		 * is rebuilt with so that it can't be called with an older one afterwards.
+		 * @return {@code false} if the cache was closed
+		 */
+		synchronized boolean addListener(Listener listener) {
+			if (this.stopped) {
+				return false;
+			}
+			this.listeners.add(listener);
+			if (this.initialized) {
+				listener.instancesChanged(this.serviceId, this.snapshot);
+			}
+			return true;
+		}
+
+		@Override
+		public void event(Type type, ChildData oldData, ChildData data) {
+			synchronized (this) {
+				if (type != Type.NODE_DELETED || !this.path.equals(oldData.getPath())
+						|| !this.listeners.isEmpty()) {
+					// the initial load fires one event per node, rebuild once it is done
+					// instead
+					if (this.initialized) {
+						rebuild();
+						notifyListeners();
+					}
+					return;
+				}
+				// the service is gone, a later lookup starts a new cache if it comes back
+				caches.remove(this.serviceId, this);
+				this.stopped = true;
+			}
+			this.cache.close();
+		}
+
+		@Override
+		public synchronized void initialized() {
+			rebuild();
+			this.initialized = true;
+			notifyListeners();
+		}
+
+		private void rebuild() {
+			List<ChildData> children = new ArrayList<>();
+			this.cache.stream().filter(this::isInstanceNode).forEach(children::add);
+			children.sort(Comparator.comparing(ChildData::getPath));
+			List<ServiceInstance> instances = new ArrayList<>(children.size());
+			Set<String> nodes = new HashSet<>();
+			for (ChildData child : children) {
+				String node = ZKPaths.getNodeFromPath(child.getPath());
+				nodes.add(node);
+				try {
+					// unchanged instances are reused from the previous snapshot
+					instances.add(converter.convert(this.serviceId, node, child.getData(),
+							child.getStat()));
+				}
+				catch (Exception e) {
+					log.warn("Unable to read instance at [" + child.getPath() + "]", e);
+				}
+			}
+			converter.retain(this.serviceId, nodes);
+			this.snapshot = ZookeeperServiceInstanceSnapshot.of(instances);
+			if (log.isTraceEnabled()) {
+				log.trace("Rebuilt instance cache for [" + this.serviceId + "] with "
+						+ instances.size() + " instances");
+			}
+		}
+
+		private void notifyListeners() {
+			for (Listener listener : this.listeners) {
+				try {
+					listener.instancesChanged(this.serviceId, this.snapshot);
+				}
+				catch (Exception e) {
+					log.warn("Instance cache listener for [" + this.serviceId + "] failed", e);
+				}
+			}
+		}
+
+		private boolean isInstanceNode(ChildData child) {
+			byte[] data = child.getData();
+			return data != null && data.length > 0
+					&& this.path.equals(ZKPaths.getPathAndNode(child.getPath()).getPath());
+		}
+
+		void close() {
+			synchronized (this) {
+				this.stopped = true;
+			}
+			this.cache.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Converts instance znodes to {@link ZookeeperServiceInstance}s, reusing the previous
+ * conversion of a znode as long as its {@link Stat} shows that it was neither
+ * recreated nor updated since. This avoids deserializing the payload and building the
+ * URI of every instance on every lookup.
+ *
+ * @since 5.0.3
+ */
+final class ZookeeperServiceInstanceConverter {
+
+	private final InstanceSerializer<ZookeeperInstance> serializer;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, Converted>> services = new ConcurrentHashMap<>();
+
+	ZookeeperServiceInstanceConverter(InstanceSerializer<ZookeeperInstance> serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Converts the data of an instance znode.
+	 * @param serviceId the service id of the instance
+	 * @param node the name of the instance znode, which is the instance id
+	 * @param data the data of the znode
+	 * @param stat the stat of the znode, or {@code null} to always convert
+	 * @return the converted instance
+	 * @throws Exception if the data can't be deserialized
+	 */
+	ZookeeperServiceInstance convert(String serviceId, String node, byte[] data,
+			Stat stat) throws Exception {
+		if (stat == null) {
+			return new ZookeeperServiceInstance(serviceId,
+					this.serializer.deserialize(data));
+		}
+		ConcurrentMap<String, Converted> instances = this.services
+				.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+		Converted converted = instances.get(node);
+		if (converted != null && converted.czxid == stat.getCzxid()
+				&& converted.version == stat.getVersion()) {
+			return converted.instance;
+		}
+		ZookeeperServiceInstance instance = new ZookeeperServiceInstance(serviceId,
+				this.serializer.deserialize(data));
+		instances.put(node, new Converted(stat.getCzxid(), stat.getVersion(), instance));
+		return instance;
+	}
+
+	/**
+	 * Forgets the conversions of the instances of a service that are no longer
+	 * registered.
+	 * @param serviceId the service id
+	 * @param nodes the names of the instance znodes currently registered
+	 */
+	void retain(String serviceId, Collection<String> nodes) {
+		ConcurrentMap<String, Converted> instances = this.services.get(serviceId);
+		if (instances == null) {
+			return;
+		}
+		if (nodes.isEmpty()) {
+			this.services.remove(serviceId, instances);
+			return;
+		}
+		Set<String> retained = nodes instanceof Set ? (Set<String>) nodes
+				: new HashSet<>(nodes);
+		instances.keySet().removeIf(node -> !retained.contains(node));
+	}
+
+	private static final class Converted {
+
+		private final long czxid;
+
+		private final int version;
+
+		private final ZookeeperServiceInstance instance;
+
+		Converted(long czxid, int version, ZookeeperServiceInstance instance) {
+			this.czxid = czxid;
+			this.version = version;
+			this.instance = instance;
+		}
+
+	}
+
+}
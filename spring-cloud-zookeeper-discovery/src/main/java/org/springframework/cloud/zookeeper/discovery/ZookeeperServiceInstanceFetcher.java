@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.zookeeper.KeeperException;
+
+/**
+ * Reads the instances of a service the same way as
+ * {@link org.apache.curator.x.discovery.ServiceDiscovery#queryForInstances(String)}, but
+ * instead of reading the instance znodes one after another it lists the children once
+ * and then pipelines the {@code getData} calls as background operations on the single
+ * Zookeeper connection. At most
+ * {@link ZookeeperDiscoveryProperties#getInstanceFetchConcurrency()} reads are in flight
+ * at any time and the results are returned in the order of the children. The
+ * asynchronous variants complete from the Curator callbacks and never block a thread.
+ * Instances are only converted again when their znode changed.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperServiceInstanceFetcher {
+
+	private final CuratorFramework curator;
+
+	private final ZookeeperDiscoveryProperties properties;
+
+	private final ZookeeperServiceInstanceConverter converter;
+
+	public ZookeeperServiceInstanceFetcher(CuratorFramework curator,
+			InstanceSerializer<ZookeeperInstance> serializer,
+			ZookeeperDiscoveryProperties properties) {
+		this.curator = curator;
+		this.properties = properties;
+		this.converter = new ZookeeperServiceInstanceConverter(serializer);
+	}
+
+	/**
+	 * Returns all the instances registered under the given service name.
+	 * @param name the service name, relative to the discovery root
+	 * @return the instances, in the order of the service's children
+	 * @throws Exception as for
+	 * {@link org.apache.curator.x.discovery.ServiceDiscovery#queryForInstances(String)}
+	 */
+	public List<ServiceInstance<ZookeeperInstance>> queryForInstances(String name)
+			throws Exception {
+		List<ZookeeperServiceInstance> instances = getInstances(name);
+		List<ServiceInstance<ZookeeperInstance>> serviceInstances = new ArrayList<>(
+				instances.size());
+		for (ZookeeperServiceInstance instance : instances) {
+			serviceInstances.add(instance.getServiceInstance());
+		}
+		return serviceInstances;
+	}
+
+	/**
+	 * Returns all the instances registered under the given service name, converted for
+	 * the {@link org.springframework.cloud.client.discovery.DiscoveryClient}. An instance
+	 * whose znode didn't change since the previous call is returned as the same object.
+	 * @param name the service name, relative to the discovery root, also used as the
+	 * service id of the instances
+	 * @return the instances, in the order of the service's children
+	 * @throws Exception as for {@link #queryForInstances(String)}
+	 */
+	public List<ZookeeperServiceInstance> getInstances(String name) throws Exception {
+		return await(getInstancesAsync(name));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getInstances(String)}. No thread is held while
+	 * waiting for Zookeeper, and cancelling the returned future stops issuing the
+	 * remaining reads.
+	 * @param name the service name, relative to the discovery root, also used as the
+	 * service id of the instances
+	 * @return a future completed with the instances, in the order of the service's
+	 * children
+	 */
+	public CompletableFuture<List<ZookeeperServiceInstance>> getInstancesAsync(
+			String name) {
+		String servicePath = ZKPaths.makePath(this.properties.getRoot(), name);
+		CompletableFuture<List<ZookeeperServiceInstance>> result = new CompletableFuture<>();
+		getChildren(servicePath, result, children -> {
+			this.converter.retain(name, children);
+			if (children.isEmpty()) {
+				result.complete(Collections.emptyList());
+			}
+			else {
+				new InstanceReads(name, servicePath, children, result).start();
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Asynchronous variant of
+	 * {@link org.apache.curator.x.discovery.ServiceDiscovery#queryForNames()}.
+	 * @return a future completed with the names of the registered services
+	 */
+	public CompletableFuture<List<String>> queryForNamesAsync() {
+		CompletableFuture<List<String>> result = new CompletableFuture<>();
+		getChildren(this.properties.getRoot(), result, result::complete);
+		return result;
+	}
+
+	private void getChildren(String path, CompletableFuture<?> result,
+			Consumer<List<String>> action) {
+		try {
+			this.curator.getChildren().inBackground((client, event) -> {
+				KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+				if (result.isDone()) {
+					return;
+				}
+				if (code == KeeperException.Code.OK) {
+					action.accept(event.getChildren());
+				}
+				else if (code == KeeperException.Code.NONODE) {
+					action.accept(Collections.emptyList());
+				}
+				else {
+					result.completeExceptionally(KeeperException.create(code, path));
+				}
+			}).forPath(path);
+		}
+		catch (Exception e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+	private <T> T await(CompletableFuture<T> result) throws Exception {
+		try {
+			return result.get(this.curator.getZookeeperClient().getConnectionTimeoutMs(),
+					TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		catch (TimeoutException e) {
+			result.cancel(false);
+			throw e;
+		}
+		catch (InterruptedException e) {
+			// stop issuing the remaining reads
+			result.cancel(false);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	/**
+	 * Issues the instance reads of one query. A new read is only started from the
+	 * callback of a completed one, which keeps the number of reads in flight bounded
+	 * without ever blocking the Zookeeper event thread.
+	 */
+	private final class InstanceReads implements BackgroundCallback {
+
+		private final String name;
+
+		private final String servicePath;
+
+		private final List<String> children;
+
+		private final AtomicReferenceArray<ZookeeperServiceInstance> instances;
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final AtomicInteger remaining;
+
+		private final CompletableFuture<List<ZookeeperServiceInstance>> result;
+
+		InstanceReads(String name, String servicePath, List<String> children,
+				CompletableFuture<List<ZookeeperServiceInstance>> result) {
+			this.name = name;
+			this.servicePath = servicePath;
+			this.children = children;
+			this.result = result;
+			this.instances = new AtomicReferenceArray<>(children.size());
+			this.remaining = new AtomicInteger(children.size());
+		}
+
+		void start() {
+			int window = Math.min(Math.max(1, properties.getInstanceFetchConcurrency()),
+					this.children.size());
+			for (int i = 0; i < window; i++) {
+				readNext();
+			}
+		}
+
+		private void readNext() {
+			int index = this.next.getAndIncrement();
+			if (index >= this.children.size() || this.result.isDone()) {
+				return;
+			}
+			try {
+				curator.getData().inBackground(this, index).forPath(
+						ZKPaths.makePath(this.servicePath, this.children.get(index)));
+			}
+			catch (Exception e) {
+				this.result.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public void processResult(CuratorFramework client, CuratorEvent event) {
+			int index = (Integer) event.getContext();
+			KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+			if (code == KeeperException.Code.OK) {
+				try {
+					this.instances.set(index, converter.convert(this.name,
+							this.children.get(index), event.getData(), event.getStat()));
+				}
+				catch (Exception e) {
+					this.result.completeExceptionally(e);
+					return;
+				}
+			}
+			else if (code != KeeperException.Code.NONODE) {
+				// a missing node was unregistered after listing, same as Curator
+				this.result.completeExceptionally(KeeperException.create(code, event.getPath()));
+				return;
+			}
+			if (this.remaining.decrementAndGet() == 0) {
+				this.result.complete(collect());
+			}
+			else {
+				readNext();
+			}
+		}
+
+		private List<ZookeeperServiceInstance> collect() {
+			List<ZookeeperServiceInstance> list = new ArrayList<>(this.instances.length());
+			for (int i = 0; i < this.instances.length(); i++) {
+				ZookeeperServiceInstance instance = this.instances.get(i);
+				if (instance != null) {
+					list.add(instance);
+				}
+			}
+			return list;
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.cloud.zookeeper.discovery;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import reactor.core.publisher.Flux;
@@ -26,9 +27,6 @@ import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
 import org.springframework.util.StringUtils;
 
-import static org.springframework.cloud.zookeeper.support.StatusConstants.INSTANCE_STATUS_KEY;
-import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_UP;
-
 /**
  * A {@link ServiceInstanceListSupplier} implementation that filters available instances based on status retrieved from Zookeeper.
  *
@@ -40,6 +38,8 @@ public class ZookeeperServiceInstanceListSupplier implements ServiceInstanceList
 	private final ServiceInstanceListSupplier delegate;
 	private final String serviceId;
 
+	private volatile Filtered lastFiltered;
+
 	public ZookeeperServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
 			ZookeeperDependencies zookeeperDependencies) {
 		this.delegate = delegate;
@@ -66,23 +66,33 @@ public class ZookeeperServiceInstanceListSupplier implements ServiceInstanceList
 	}
 
 	private List<ServiceInstance> filteredByZookeeperStatusUp(List<ServiceInstance> serviceInstances) {
-		ArrayList<ServiceInstance> filteredInstances = new ArrayList<>();
+		// the instance cache hands out the same list until the service changes
+		Filtered filtered = this.lastFiltered;
+		if (filtered != null && filtered.source == serviceInstances) {
+			return filtered.instances;
+		}
+		List<ServiceInstance> filteredInstances = new ArrayList<>(serviceInstances.size());
 		for (ServiceInstance serviceInstance : serviceInstances) {
-			if (serviceInstance instanceof ZookeeperServiceInstance) {
-				org.apache.curator.x.discovery.ServiceInstance<ZookeeperInstance> zookeeperServiceInstance = ((ZookeeperServiceInstance) serviceInstance)
-						.getServiceInstance();
-				String instanceStatus = null;
-				if (zookeeperServiceInstance.getPayload() != null
-						&& zookeeperServiceInstance.getPayload().getMetadata() != null) {
-					instanceStatus = zookeeperServiceInstance.getPayload().getMetadata()
-							.get(INSTANCE_STATUS_KEY);
-				}
-				if (!StringUtils.hasText(instanceStatus) // backwards compatibility
-						|| instanceStatus.equalsIgnoreCase(STATUS_UP)) {
-					filteredInstances.add(serviceInstance);
-				}
+			if (ZookeeperServiceInstanceSnapshot.isUp(serviceInstance)) {
+				filteredInstances.add(serviceInstance);
 			}
 		}
-		return filteredInstances;
+		filtered = new Filtered(serviceInstances, Collections.unmodifiableList(filteredInstances));
+		this.lastFiltered = filtered;
+		return filtered.instances;
 	}
+
+	private static final class Filtered {
+
+		private final List<ServiceInstance> source;
+
+		private final List<ServiceInstance> instances;
+
+		Filtered(List<ServiceInstance> source, List<ServiceInstance> instances) {
+			this.source = source;
+			this.instances = instances;
+		}
+
+	}
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.util.StringUtils;
+
+import static org.springframework.cloud.zookeeper.support.StatusConstants.INSTANCE_STATUS_KEY;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_OUT_OF_SERVICE;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_UP;
+
+/**
+ * Immutable snapshot of the instances of a service, partitioned once by the status
+ * registered in their Zookeeper metadata so that callers interested in a single status
+ * don't have to filter on every lookup. Instances without a status are considered
+ * {@link org.springframework.cloud.zookeeper.support.StatusConstants#STATUS_UP UP} for
+ * backwards compatibility.
+ *
+ * @since 5.0.3
+ */
+public final class ZookeeperServiceInstanceSnapshot {
+
+	private static final ZookeeperServiceInstanceSnapshot EMPTY = new ZookeeperServiceInstanceSnapshot(
+			Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+			Collections.emptyList());
+
+	private final List<ServiceInstance> all;
+
+	private final List<ServiceInstance> up;
+
+	private final List<ServiceInstance> outOfService;
+
+	private final List<ServiceInstance> other;
+
+	private ZookeeperServiceInstanceSnapshot(List<ServiceInstance> all,
+			List<ServiceInstance> up, List<ServiceInstance> outOfService,
+			List<ServiceInstance> other) {
+		this.all = all;
+		this.up = up;
+		this.outOfService = outOfService;
+		this.other = other;
+	}
+
+	/**
+	 * Partitions the given instances.
+	 * @param instances the instances of a service
+	 * @return the snapshot
+	 */
+	public static ZookeeperServiceInstanceSnapshot of(List<ServiceInstance> instances) {
+		if (instances.isEmpty()) {
+			return EMPTY;
+		}
+		List<ServiceInstance> up = new ArrayList<>(instances.size());
+		List<ServiceInstance> outOfService = new ArrayList<>();
+		List<ServiceInstance> other = new ArrayList<>();
+		for (ServiceInstance instance : instances) {
+			if (isUp(instance)) {
+				up.add(instance);
+			}
+			else if (STATUS_OUT_OF_SERVICE.equalsIgnoreCase(getStatus(instance))) {
+				outOfService.add(instance);
+			}
+			else {
+				other.add(instance);
+			}
+		}
+		return new ZookeeperServiceInstanceSnapshot(
+				Collections.unmodifiableList(new ArrayList<>(instances)),
+				Collections.unmodifiableList(up), Collections.unmodifiableList(outOfService),
+				Collections.unmodifiableList(other));
+	}
+
+	/**
+	 * Returns an empty snapshot.
+	 * @return the empty snapshot
+	 */
+	public static ZookeeperServiceInstanceSnapshot empty() {
+		return EMPTY;
+	}
+
+	static boolean isUp(ServiceInstance instance) {
+		if (!(instance instanceof ZookeeperServiceInstance)) {
+			return false;
+		}
+		String status = getStatus(instance);
+		return !StringUtils.hasText(status) // backwards compatibility
+				|| status.equalsIgnoreCase(STATUS_UP);
+	}
+
+	private static String getStatus(ServiceInstance instance) {
+		if (!(instance instanceof ZookeeperServiceInstance)) {
+			return null;
+		}
+		org.apache.curator.x.discovery.ServiceInstance<ZookeeperInstance> zookeeperServiceInstance = ((ZookeeperServiceInstance) instance)
+				.getServiceInstance();
+		if (zookeeperServiceInstance.getPayload() != null
+				&& zookeeperServiceInstance.getPayload().getMetadata() != null) {
+			return zookeeperServiceInstance.getPayload().getMetadata()
+					.get(INSTANCE_STATUS_KEY);
+		}
+		return null;
+	}
+
+	/**
+	 * @return all the instances
+	 */
+	public List<ServiceInstance> getAll() {
+		return this.all;
+	}
+
+	/**
+	 * @return the instances with status UP or without a status
+	 */
+	public List<ServiceInstance> getUp() {
+		return this.up;
+	}
+
+	/**
+	 * @return the instances with status OUT_OF_SERVICE
+	 */
+	public List<ServiceInstance> getOutOfService() {
+		return this.outOfService;
+	}
+
+	/**
+	 * @return the instances with any other status, or which are not Zookeeper instances
+	 */
+	public List<ServiceInstance> getOther() {
+		return this.other;
+	}
+
+}
@@ -54,14 +54,26 @@ public class ZookeeperServiceInstances
 
 	private final CuratorFramework curator;
 
+	private final ZookeeperServiceInstanceFetcher instanceFetcher;
+
 	public ZookeeperServiceInstances(CuratorFramework curator,
 			ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
 			ZookeeperDependencies zookeeperDependencies,
 			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		this(curator, serviceDiscovery, zookeeperDependencies,
+				zookeeperDiscoveryProperties, null);
+	}
+
+	public ZookeeperServiceInstances(CuratorFramework curator,
+			ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies,
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher) {
 		this.curator = curator;
 		this.serviceDiscovery = serviceDiscovery;
 		this.zookeeperDependencies = zookeeperDependencies;
 		this.zookeeperDiscoveryProperties = zookeeperDiscoveryProperties;
+		this.instanceFetcher = instanceFetcher;
 		this.allInstances = getZookeeperInstances();
 	}
 
@@ -114,7 +126,7 @@ public class ZookeeperServiceInstances
 	private Collection<ServiceInstance<ZookeeperInstance>> tryToGetInstances(
 			String path) {
 		try {
-			return getServiceDiscovery().queryForInstances(getPathWithoutRoot(path));
+			return queryForInstances(getPathWithoutRoot(path));
 		}
 		catch (Exception e) {
 			log.trace("Exception occurred while trying to retrieve instances of [" + path
@@ -123,6 +135,14 @@ public class ZookeeperServiceInstances
 		}
 	}
 
+	private Collection<ServiceInstance<ZookeeperInstance>> queryForInstances(String name)
+			throws Exception {
+		if (this.instanceFetcher != null) {
+			return this.instanceFetcher.queryForInstances(name);
+		}
+		return getServiceDiscovery().queryForInstances(name);
+	}
+
 	private ServiceDiscovery<ZookeeperInstance> getServiceDiscovery() {
 		return this.serviceDiscovery;
 	}
@@ -134,8 +154,7 @@ public class ZookeeperServiceInstances
 	private List<ServiceInstance<ZookeeperInstance>> injectZookeeperServiceInstances(
 			List<ServiceInstance<ZookeeperInstance>> accumulator, String name)
 			throws Exception {
-		Collection<ServiceInstance<ZookeeperInstance>> instances = getServiceDiscovery()
-				.queryForInstances(name);
+		Collection<ServiceInstance<ZookeeperInstance>> instances = queryForInstances(name);
 		accumulator.addAll(convertCollectionToList(instances));
 		return accumulator;
 	}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+/**
+ * Index of the names of the registered services, that is the children of the discovery
+ * root. It is kept current by a single watch on the root, so listing the services
+ * doesn't touch Zookeeper and a lookup for a service that isn't registered can be
+ * answered without a round trip ending in a {@code NoNodeException}.
+ * <p>
+ * The index is loaded in the background the first time it is used and is only
+ * considered valid while connected to Zookeeper. Until then, and whenever the
+ * connection is suspended, {@link #getNames()} returns {@code null} and
+ * {@link #isAbsent(String)} returns {@code false}, so callers query Zookeeper as
+ * before. Like any watch, the index can briefly lag behind a service that was just
+ * registered.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperServiceNameIndex
+		implements Closeable, Watcher, ConnectionStateListener {
+
+	private static final Log log = LogFactory.getLog(ZookeeperServiceNameIndex.class);
+
+	private final CuratorFramework curator;
+
+	private final ZookeeperDiscoveryProperties properties;
+
+	private final AtomicBoolean started = new AtomicBoolean(false);
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private long applied;
+
+	private volatile Names names;
+
+	public ZookeeperServiceNameIndex(CuratorFramework curator,
+			ZookeeperDiscoveryProperties properties) {
+		this.curator = curator;
+		this.properties = properties;
+	}
+
+	/**
+	 * Returns the names of the registered services, starting the watch on the discovery
+	 * root if this is the first lookup.
+	 * @return an immutable list of the service names or {@code null} if the index is not
+	 * loaded yet or not connected and the caller should query Zookeeper directly
+	 */
+	public List<String> getNames() {
+		Names names = current();
+		return names != null ? names.list : null;
+	}
+
+	/**
+	 * Returns whether the given service is known not to be registered, starting the watch
+	 * on the discovery root if this is the first lookup.
+	 * @param serviceId the service id (already resolved from any dependency alias),
+	 * relative to the discovery root
+	 * @return {@code true} only if the index is valid and doesn't contain the service
+	 */
+	public boolean isAbsent(String serviceId) {
+		Names names = current();
+		if (names == null || serviceId == null) {
+			return false;
+		}
+		// a dependency path may point below a service node, only its first segment is
+		// a child of the root
+		String name = serviceId.startsWith("/") ? serviceId.substring(1) : serviceId;
+		int index = name.indexOf('/');
+		return !names.set.contains(index < 0 ? name : name.substring(0, index));
+	}
+
+	private Names current() {
+		if (this.closed.get()) {
+			return null;
+		}
+		if (this.started.compareAndSet(false, true)) {
+			this.curator.getConnectionStateListenable().addListener(this);
+			load();
+		}
+		return this.names;
+	}
+
+	private void load() {
+		long load = this.loads.incrementAndGet();
+		try {
+			this.curator.getChildren().usingWatcher(this)
+					.inBackground((client, event) -> loaded(load, event))
+					.forPath(this.properties.getRoot());
+		}
+		catch (Exception e) {
+			log.warn("Unable to load the service names under ["
+					+ this.properties.getRoot() + "]", e);
+		}
+	}
+
+	private void loaded(long load, CuratorEvent event) throws Exception {
+		KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+		if (code == KeeperException.Code.NONODE) {
+			// nothing registered yet, be told when the root is created
+			this.curator.checkExists().usingWatcher(this)
+					.inBackground((client, exists) -> rootExists(exists))
+					.forPath(this.properties.getRoot());
+			apply(load, new Names(Collections.emptyList()));
+		}
+		else if (code == KeeperException.Code.OK) {
+			apply(load, new Names(event.getChildren()));
+		}
+		else if (log.isDebugEnabled()) {
+			log.debug("Unable to load the service names under ["
+					+ this.properties.getRoot() + "]: " + code);
+		}
+	}
+
+	private void rootExists(CuratorEvent event) {
+		// the root was created before the watch was set, no event will tell about it
+		if (event.getResultCode() == KeeperException.Code.OK.intValue()
+				&& !this.closed.get()) {
+			load();
+		}
+	}
+
+	private synchronized void apply(long load, Names names) {
+		// loads may complete out of order, never replace newer names with older ones
+		if (load > this.applied && !this.closed.get()) {
+			this.applied = load;
+			this.names = names;
+			if (log.isTraceEnabled()) {
+				log.trace("Loaded " + names.list.size() + " service names");
+			}
+		}
+	}
+
+	private synchronized void invalidate() {
+		// names loaded before the connection was suspended must not be applied
+		this.applied = this.loads.get();
+		this.names = null;
+	}
+
+	@Override
+	public void process(WatchedEvent event) {
+		if (this.closed.get()) {
+			return;
+		}
+		if (event.getType() == Event.EventType.NodeChildrenChanged
+				|| event.getType() == Event.EventType.NodeCreated
+				|| event.getType() == Event.EventType.NodeDeleted) {
+			load();
+		}
+	}
+
+	@Override
+	public void stateChanged(CuratorFramework client, ConnectionState newState) {
+		if (newState == ConnectionState.SUSPENDED || newState == ConnectionState.LOST) {
+			invalidate();
+		}
+		else if (newState == ConnectionState.RECONNECTED && !this.closed.get()) {
+			// changes may have been missed and the watch lost with the session
+			load();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.closed.compareAndSet(false, true)) {
+			this.curator.getConnectionStateListenable().removeListener(this);
+			invalidate();
+		}
+	}
+
+	private static final class Names {
+
+		private final List<String> list;
+
+		private final Set<String> set;
+
+		Names(List<String> names) {
+			this.list = Collections.unmodifiableList(new ArrayList<>(names));
+			this.set = new HashSet<>(names);
+		}
+
+	}
+
+}
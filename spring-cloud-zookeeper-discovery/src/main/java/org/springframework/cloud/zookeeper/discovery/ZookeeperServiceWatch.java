@@ -16,16 +16,28 @@
 
 package org.springframework.cloud.zookeeper.discovery;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import jakarta.annotation.PreDestroy;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.recipes.watch.PersistentWatcher;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 
 import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
 import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.ApplicationListener;
@@ -33,7 +45,14 @@ import org.springframework.util.ReflectionUtils;
 
 /**
  * A {@link TreeCacheListener} that sends {@link HeartbeatEvent} when an entry inside
- * Zookeeper has changed.
+ * Zookeeper has changed. The events are {@link ZookeeperHeartbeatEvent}s carrying the
+ * ids of the changed services. When
+ * {@link ZookeeperDiscoveryProperties#getHeartbeatCoalesceWindow()} is set, all the
+ * changes within that window are published as a single event.
+ * <p>
+ * Depending on {@link ZookeeperDiscoveryProperties#getWatchMode()}, the discovery root
+ * is either watched through a {@link TreeCache} or through a single persistent
+ * recursive watch that doesn't cache any data.
  *
  * @author Spencer Gibb
  * @since 1.0.0
@@ -52,6 +71,18 @@ public class ZookeeperServiceWatch
 
 	private TreeCache cache;
 
+	private PersistentWatcher watcher;
+
+	private final Object pendingLock = new Object();
+
+	private Set<String> pending;
+
+	private boolean pendingUnknown;
+
+	private ScheduledExecutorService scheduler;
+
+	private boolean closed;
+
 	public ZookeeperServiceWatch(CuratorFramework curator,
 			ZookeeperDiscoveryProperties properties) {
 		this.curator = curator;
@@ -63,12 +94,20 @@ public class ZookeeperServiceWatch
 		this.publisher = publisher;
 	}
 
+	/**
+	 * @return the cache watching the discovery root, or {@code null} if the watch mode
+	 * is not {@link ZookeeperWatchMode#TREE_CACHE}
+	 */
 	public TreeCache getCache() {
 		return this.cache;
 	}
 
 	@Override
 	public void onApplicationEvent(InstanceRegisteredEvent<?> event) {
+		if (this.properties.getWatchMode() != ZookeeperWatchMode.TREE_CACHE) {
+			startPersistentWatcher();
+			return;
+		}
 		this.cache = TreeCache.newBuilder(this.curator, this.properties.getRoot())
 				.build();
 		this.cache.getListenable().addListener(this);
@@ -80,11 +119,34 @@ public class ZookeeperServiceWatch
 		}
 	}
 
+	private void startPersistentWatcher() {
+		this.watcher = new PersistentWatcher(this.curator, this.properties.getRoot(),
+				true);
+		this.watcher.getListenable().addListener(this::process);
+		// events may have been missed while disconnected
+		this.watcher.getResetListenable()
+				.addListener(() -> changed(null, true));
+		this.watcher.start();
+	}
+
 	@PreDestroy
 	public void stop() throws Exception {
 		if (this.cache != null) {
 			this.cache.close();
 		}
+		if (this.watcher != null) {
+			this.watcher.close();
+		}
+		synchronized (this.pendingLock) {
+			// the caches may still deliver events, they are dropped from now on
+			this.closed = true;
+			this.pending = null;
+			this.pendingUnknown = false;
+			if (this.scheduler != null) {
+				this.scheduler.shutdownNow();
+				this.scheduler = null;
+			}
+		}
 	}
 
 	@Override
@@ -93,9 +155,137 @@ public class ZookeeperServiceWatch
 		if (event.getType().equals(TreeCacheEvent.Type.NODE_ADDED)
 				|| event.getType().equals(TreeCacheEvent.Type.NODE_REMOVED)
 				|| event.getType().equals(TreeCacheEvent.Type.NODE_UPDATED)) {
-			long newCacheChange = this.cacheChange.incrementAndGet();
-			this.publisher.publishEvent(new HeartbeatEvent(this, newCacheChange));
+			String serviceId = getServiceId(event.getData());
+			changed(serviceId != null ? Collections.singleton(serviceId) : null, false);
+		}
+	}
+
+	private void process(WatchedEvent event) {
+		Watcher.Event.EventType type = event.getType();
+		if (type == Watcher.Event.EventType.NodeCreated
+				|| type == Watcher.Event.EventType.NodeDeleted
+				|| (type == Watcher.Event.EventType.NodeDataChanged
+						&& this.properties.getWatchMode() != ZookeeperWatchMode.STRUCTURE_ONLY)) {
+			changed(getServiceIds(event), true);
+		}
+	}
+
+	/**
+	 * Publishes a change to the given services, or to unknown services if
+	 * {@code null}. Events received on the Zookeeper event thread are published from
+	 * another thread, as listeners may well query Zookeeper in turn. Events received
+	 * once stopped are dropped.
+	 */
+	private void changed(Set<String> serviceIds, boolean eventThread) {
+		Duration window = this.properties.getHeartbeatCoalesceWindow();
+		if (window == null || window.isZero() || window.isNegative()) {
+			Set<String> changed = serviceIds != null ? serviceIds : Collections.emptySet();
+			synchronized (this.pendingLock) {
+				if (this.closed) {
+					return;
+				}
+				if (eventThread) {
+					scheduler().execute(() -> publish(changed));
+					return;
+				}
+			}
+			publish(changed);
+			return;
+		}
+		synchronized (this.pendingLock) {
+			if (this.closed) {
+				return;
+			}
+			if (this.pending == null) {
+				this.pending = new LinkedHashSet<>();
+				scheduler().schedule(this::publishPending, window.toMillis(),
+						TimeUnit.MILLISECONDS);
+			}
+			if (serviceIds != null) {
+				this.pending.addAll(serviceIds);
+			}
+			else {
+				this.pendingUnknown = true;
+			}
+		}
+	}
+
+	private void publishPending() {
+		Set<String> serviceIds;
+		synchronized (this.pendingLock) {
+			if (this.closed) {
+				return;
+			}
+			serviceIds = this.pendingUnknown ? Collections.emptySet() : this.pending;
+			this.pending = null;
+			this.pendingUnknown = false;
+		}
+		if (serviceIds != null) {
+			publish(Collections.unmodifiableSet(serviceIds));
+		}
+	}
+
+	private void publish(Set<String> serviceIds) {
+		long newCacheChange = this.cacheChange.incrementAndGet();
+		this.publisher.publishEvent(
+				new ZookeeperHeartbeatEvent(this, newCacheChange, serviceIds));
+	}
+
+	private ScheduledExecutorService scheduler() {
+		if (this.scheduler == null) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "zookeeper-service-watch");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.scheduler;
+	}
+
+	/**
+	 * Returns the ids of the services a node may belong to when only its path is known,
+	 * following the rule of {@link #getServiceId(ChildData)}: only an instance node holds
+	 * data, so the node of a data change is an instance of its parent. A created or
+	 * deleted node may be a service, nested or not, as well as an instance of its parent,
+	 * so both are reported.
+	 */
+	private Set<String> getServiceIds(WatchedEvent event) {
+		String root = this.properties.getRoot();
+		String path = event.getPath();
+		if (path == null || !path.startsWith(root + "/")) {
+			return null;
+		}
+		String node = path.substring(root.length() + 1);
+		int index = node.lastIndexOf('/');
+		boolean instance = event.getType() == Watcher.Event.EventType.NodeDataChanged;
+		if (index <= 0) {
+			return instance ? null : Collections.singleton(node);
+		}
+		String parent = node.substring(0, index);
+		if (instance) {
+			return Collections.singleton(parent);
+		}
+		Set<String> serviceIds = new LinkedHashSet<>();
+		serviceIds.add(node);
+		serviceIds.add(parent);
+		return serviceIds;
+	}
+
+	/**
+	 * Returns the id of the service a node belongs to: the node itself for a service
+	 * node, its parent for an instance node, which is the only one holding data.
+	 */
+	private String getServiceId(ChildData data) {
+		String root = this.properties.getRoot();
+		if (data == null || !data.getPath().startsWith(root + "/")) {
+			return null;
+		}
+		String serviceId = data.getPath().substring(root.length() + 1);
+		if (data.getData() != null && data.getData().length > 0) {
+			int index = serviceId.lastIndexOf('/');
+			return index > 0 ? serviceId.substring(0, index) : null;
 		}
+		return serviceId;
 	}
 
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * A {@link ServiceInstanceListSupplier} that is pushed the instances of a service by a
+ * {@link ZookeeperServiceInstanceCache} instead of polling for them. All subscribers
+ * share one hot stream replaying the latest list of instances with status UP, and a
+ * new list is only emitted when the znodes of the service change. If the cache for the
+ * service can't be started, lists are retrieved from the given fallback supplier until
+ * the service is watched again, which is retried with a growing backoff.
+ *
+ * @since 5.0.3
+ */
+public class ZookeeperWatchingServiceInstanceListSupplier
+		implements ServiceInstanceListSupplier, Closeable {
+
+	private static final Log log = LogFactory
+			.getLog(ZookeeperWatchingServiceInstanceListSupplier.class);
+
+	private static final long MIN_BACKOFF = Duration.ofSeconds(1).toNanos();
+
+	private static final long MAX_BACKOFF = Duration.ofMinutes(1).toNanos();
+
+	private final String serviceId;
+
+	private final ZookeeperServiceInstanceCache instanceCache;
+
+	private final ServiceInstanceListSupplier fallback;
+
+	private Flux<List<ServiceInstance>> instances;
+
+	private Disposable connection;
+
+	private long backoff = MIN_BACKOFF;
+
+	private long retryAt;
+
+	private boolean closed;
+
+	/**
+	 * @param serviceId the service id (already resolved from any dependency alias)
+	 * @param instanceCache the cache to receive the instances from
+	 * @param fallback the supplier to use if the cache can't watch the service
+	 */
+	public ZookeeperWatchingServiceInstanceListSupplier(String serviceId,
+			ZookeeperServiceInstanceCache instanceCache,
+			ServiceInstanceListSupplier fallback) {
+		this.serviceId = serviceId;
+		this.instanceCache = instanceCache;
+		this.fallback = fallback;
+		this.instances = watch();
+	}
+
+	private Flux<List<ServiceInstance>> watch() {
+		return Flux.<ZookeeperServiceInstanceSnapshot>create(sink -> {
+			ZookeeperServiceInstanceCache.Listener listener = (id, snapshot) -> sink
+					.next(snapshot);
+			if (!this.instanceCache.addListener(this.serviceId, listener)) {
+				sink.error(new IllegalStateException(
+						"Unable to watch instances of [" + this.serviceId + "]"));
+				return;
+			}
+			sink.onDispose(() -> this.instanceCache.removeListener(this.serviceId, listener));
+		})
+				// the cache hands out the same snapshot until the service changes
+				.distinctUntilChanged(snapshot -> snapshot, (previous, next) -> previous == next)
+				.map(ZookeeperServiceInstanceSnapshot::getUp)
+				.doOnNext(instances -> watched())
+				.replay(1)
+				.autoConnect(1, this::connected);
+	}
+
+	private synchronized void connected(Disposable connection) {
+		if (this.closed) {
+			connection.dispose();
+		}
+		this.connection = connection;
+	}
+
+	private synchronized void watched() {
+		this.backoff = MIN_BACKOFF;
+	}
+
+	/**
+	 * Drops a stream that failed, replaying its error to every subscriber otherwise, and
+	 * decides when to watch the service again.
+	 */
+	private synchronized void failed(Flux<List<ServiceInstance>> instances) {
+		if (this.instances == instances) {
+			this.instances = null;
+			this.retryAt = System.nanoTime() + this.backoff;
+			this.backoff = Math.min(this.backoff * 2, MAX_BACKOFF);
+		}
+	}
+
+	private synchronized Flux<List<ServiceInstance>> instances() {
+		if (this.instances == null && !this.closed
+				&& System.nanoTime() - this.retryAt >= 0) {
+			this.instances = watch();
+		}
+		return this.instances;
+	}
+
+	@Override
+	public String getServiceId() {
+		return this.serviceId;
+	}
+
+	@Override
+	public Flux<List<ServiceInstance>> get() {
+		Flux<List<ServiceInstance>> instances = instances();
+		if (instances == null) {
+			return this.fallback.get();
+		}
+		return instances.onErrorResume(e -> {
+			failed(instances);
+			if (log.isDebugEnabled()) {
+				log.debug("Falling back to querying the instances of [" + this.serviceId + "]", e);
+			}
+			return this.fallback.get();
+		});
+	}
+
+	@Override
+	public synchronized void close() {
+		this.closed = true;
+		if (this.connection != null) {
+			this.connection.dispose();
+		}
+	}
+
+}
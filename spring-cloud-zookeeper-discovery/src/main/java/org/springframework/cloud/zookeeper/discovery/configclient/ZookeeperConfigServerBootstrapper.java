@@ -22,7 +22,6 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
 import org.apache.curator.x.discovery.details.InstanceSerializer;
-import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
 
 import org.springframework.boot.bootstrap.BootstrapContext;
 import org.springframework.boot.bootstrap.BootstrapRegistry;
@@ -40,6 +39,7 @@ import org.springframework.cloud.zookeeper.discovery.ConditionalOnZookeeperDisco
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryClient;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperInstanceSerializer;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
 import org.springframework.cloud.zookeeper.support.DefaultServiceDiscoveryCustomizer;
 import org.springframework.cloud.zookeeper.support.ServiceDiscoveryCustomizer;
@@ -96,7 +96,8 @@ public class ZookeeperConfigServerBootstrapper implements BootstrapRegistryIniti
 			if (!isEnabled(context)) {
 				return null;
 			}
-			return new JsonInstanceSerializer<>(ZookeeperInstance.class);
+			ZookeeperDiscoveryProperties properties = context.get(ZookeeperDiscoveryProperties.class);
+			return new ZookeeperInstanceSerializer(properties.isCompactSerialization());
 		});
 		registry.registerIfAbsent(ServiceDiscoveryCustomizer.class, context -> {
 			if (!isEnabled(context)) {
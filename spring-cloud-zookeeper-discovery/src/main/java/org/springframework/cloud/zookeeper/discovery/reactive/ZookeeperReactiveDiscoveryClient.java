@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.zookeeper.discovery.reactive;
 
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -32,6 +33,8 @@ import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstanceFetcher;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceNameIndex;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
 
 /**
@@ -51,11 +54,29 @@ public class ZookeeperReactiveDiscoveryClient implements ReactiveDiscoveryClient
 
 	private final ZookeeperDiscoveryProperties zookeeperDiscoveryProperties;
 
+	private final ZookeeperServiceInstanceFetcher instanceFetcher;
+
+	private final ZookeeperServiceNameIndex serviceNameIndex;
+
 	public ZookeeperReactiveDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
 			ZookeeperDependencies zookeeperDependencies, ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
+		this(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties, null);
+	}
+
+	public ZookeeperReactiveDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies, ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher) {
+		this(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties, instanceFetcher, null);
+	}
+
+	public ZookeeperReactiveDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
+			ZookeeperDependencies zookeeperDependencies, ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ZookeeperServiceInstanceFetcher instanceFetcher, ZookeeperServiceNameIndex serviceNameIndex) {
 		this.serviceDiscovery = serviceDiscovery;
 		this.zookeeperDependencies = zookeeperDependencies;
 		this.zookeeperDiscoveryProperties = zookeeperDiscoveryProperties;
+		this.instanceFetcher = instanceFetcher;
+		this.serviceNameIndex = serviceNameIndex;
 	}
 
 	@Override
@@ -66,6 +87,20 @@ public class ZookeeperReactiveDiscoveryClient implements ReactiveDiscoveryClient
 	@Override
 	public Flux<ServiceInstance> getInstances(String serviceId) {
 		String serviceIdToQuery = serviceIdToQuery(serviceId);
+		if (serviceNameIndex != null && serviceNameIndex.isAbsent(serviceIdToQuery)) {
+			return Flux.empty();
+		}
+		if (instanceFetcher != null) {
+			// completes from the Curator callbacks, cancelling stops the pending reads;
+			// downstream operators must not run on the Curator event thread
+			return Mono.fromFuture(() -> instanceFetcher.getInstancesAsync(serviceIdToQuery))
+					.publishOn(Schedulers.boundedElastic())
+					.<ServiceInstance>flatMapIterable(Function.identity())
+					.onErrorResume(e -> {
+						logger.error("Error getting instances from zookeeper. Possibly, no service has registered.", e);
+						return Flux.empty();
+					});
+		}
 		return Mono.justOrEmpty(serviceIdToQuery)
 				.flatMapMany(getInstancesFromZookeeper())
 				.subscribeOn(Schedulers.boundedElastic())
@@ -91,6 +126,22 @@ public class ZookeeperReactiveDiscoveryClient implements ReactiveDiscoveryClient
 
 	@Override
 	public Flux<String> getServices() {
+		if (serviceNameIndex != null) {
+			// the index never blocks, it is only used once loaded
+			List<String> names = serviceNameIndex.getNames();
+			if (names != null) {
+				return Flux.fromIterable(names);
+			}
+		}
+		if (instanceFetcher != null) {
+			return Mono.fromFuture(instanceFetcher::queryForNamesAsync)
+					.publishOn(Schedulers.boundedElastic())
+					.flatMapIterable(Function.identity())
+					.onErrorResume(e -> {
+						logger.error("Error getting services from zookeeper. Possibly, no service has registered.", e);
+						return Flux.empty();
+					});
+		}
 		return Flux.defer(getServicesFromZookeeper())
 				.subscribeOn(Schedulers.boundedElastic());
 	}
@@ -18,6 +18,7 @@ package org.springframework.cloud.zookeeper.discovery.reactive;
 
 import org.apache.curator.x.discovery.ServiceDiscovery;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -34,6 +35,8 @@ import org.springframework.cloud.zookeeper.ZookeeperAutoConfiguration;
 import org.springframework.cloud.zookeeper.discovery.ConditionalOnZookeeperDiscoveryEnabled;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstanceFetcher;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceNameIndex;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -59,8 +62,11 @@ public class ZookeeperReactiveDiscoveryClientConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	public ZookeeperReactiveDiscoveryClient zookeeperReactiveDiscoveryClient(ServiceDiscovery<ZookeeperInstance> serviceDiscovery,
-			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties) {
-		return new ZookeeperReactiveDiscoveryClient(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties);
+			ZookeeperDiscoveryProperties zookeeperDiscoveryProperties,
+			ObjectProvider<ZookeeperServiceInstanceFetcher> instanceFetcher,
+			ObjectProvider<ZookeeperServiceNameIndex> serviceNameIndex) {
+		return new ZookeeperReactiveDiscoveryClient(serviceDiscovery, zookeeperDependencies, zookeeperDiscoveryProperties,
+				instanceFetcher.getIfAvailable(), serviceNameIndex.getIfAvailable());
 	}
 
 	@Bean
@@ -18,7 +18,6 @@ package org.springframework.cloud.zookeeper.serviceregistry;
 
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.details.InstanceSerializer;
-import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
 
 import org.springframework.beans.BeansException;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -30,6 +29,7 @@ import org.springframework.cloud.commons.util.InetUtils;
 import org.springframework.cloud.zookeeper.discovery.ConditionalOnZookeeperDiscoveryEnabled;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperInstanceSerializer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Bean;
@@ -61,8 +61,9 @@ public class ZookeeperServiceRegistryAutoConfiguration
 
 	@Bean
 	@ConditionalOnMissingBean
-	public InstanceSerializer<ZookeeperInstance> instanceSerializer() {
-		return new JsonInstanceSerializer<>(ZookeeperInstance.class);
+	public InstanceSerializer<ZookeeperInstance> instanceSerializer(
+			ZookeeperDiscoveryProperties properties) {
+		return new ZookeeperInstanceSerializer(properties.isCompactSerialization());
 	}
 
 	@Bean
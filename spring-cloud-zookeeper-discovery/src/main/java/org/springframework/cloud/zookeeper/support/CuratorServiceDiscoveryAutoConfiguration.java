@@ -20,15 +20,17 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
 import org.apache.curator.x.discovery.details.InstanceSerializer;
-import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
 
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
 import org.springframework.cloud.zookeeper.discovery.ConditionalOnZookeeperDiscoveryEnabled;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryAutoConfiguration;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperInstanceSerializer;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstanceFetcher;
 import org.springframework.cloud.zookeeper.serviceregistry.ZookeeperServiceRegistryAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -53,8 +55,9 @@ public class CuratorServiceDiscoveryAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public InstanceSerializer<ZookeeperInstance> deprecatedInstanceSerializer() {
-		return new JsonInstanceSerializer<>(ZookeeperInstance.class);
+	public InstanceSerializer<ZookeeperInstance> deprecatedInstanceSerializer(
+			ZookeeperDiscoveryProperties properties) {
+		return new ZookeeperInstanceSerializer(properties.isCompactSerialization());
 	}
 
 	@Bean
@@ -65,4 +68,15 @@ public class CuratorServiceDiscoveryAutoConfiguration {
 				.customize(ServiceDiscoveryBuilder.builder(ZookeeperInstance.class));
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	// the fetcher reads from the discovery root, which only the default customizer is
+	// guaranteed to use as base path
+	@ConditionalOnBean(DefaultServiceDiscoveryCustomizer.class)
+	public ZookeeperServiceInstanceFetcher zookeeperServiceInstanceFetcher(
+			CuratorFramework curator, ZookeeperDiscoveryProperties properties,
+			InstanceSerializer<ZookeeperInstance> serializer) {
+		return new ZookeeperServiceInstanceFetcher(curator, serializer, properties);
+	}
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.INSTANCE_STATUS_KEY;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_OUT_OF_SERVICE;
+
+class ZookeeperDiscoveryHealthIndicatorTests {
+
+	private TestingServer server;
+
+	private CuratorFramework curator;
+
+	private ServiceDiscovery<ZookeeperInstance> serviceDiscovery;
+
+	private ZookeeperDiscoveryProperties properties;
+
+	private ZookeeperDiscoveryHealthIndicator indicator;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+		this.serviceDiscovery = ServiceDiscoveryBuilder.builder(ZookeeperInstance.class)
+				.client(this.curator).basePath("/services")
+				.serializer(new JsonInstanceSerializer<>(ZookeeperInstance.class)).build();
+		this.serviceDiscovery.start();
+		this.properties = new ZookeeperDiscoveryProperties();
+		this.indicator = new ZookeeperDiscoveryHealthIndicator(this.curator,
+				this.serviceDiscovery, null, this.properties);
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.serviceDiscovery.close();
+		this.curator.close();
+		this.server.close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void should_report_instance_counts_per_service_and_status() throws Exception {
+		register("one", Collections.emptyMap());
+		register("two", Collections.singletonMap(INSTANCE_STATUS_KEY, STATUS_OUT_OF_SERVICE));
+
+		Health health = this.indicator.health();
+
+		then(health.getStatus()).isEqualTo(Status.UP);
+		Map<String, Map<String, Integer>> services = (Map<String, Map<String, Integer>>) health
+				.getDetails().get("services");
+		then(services.get("myservice")).containsEntry("instances", 2)
+				.containsEntry("UP", 1).containsEntry(STATUS_OUT_OF_SERVICE, 1);
+	}
+
+	@Test
+	void should_reuse_the_health_until_the_registry_changes() throws Exception {
+		this.properties.setHealthMaxAge(Duration.ZERO);
+		register("one", Collections.emptyMap());
+		Health health = this.indicator.health();
+
+		then(this.indicator.health()).isSameAs(health);
+
+		this.indicator.onApplicationEvent(new HeartbeatEvent(
+				new ZookeeperServiceWatch(this.curator, this.properties), 1L));
+
+		then(this.indicator.health()).isNotSameAs(health);
+	}
+
+	@Test
+	void should_rebuild_the_health_at_most_once_per_max_age() throws Exception {
+		register("one", Collections.emptyMap());
+		Health health = this.indicator.health();
+
+		this.indicator.onApplicationEvent(new HeartbeatEvent(
+				new ZookeeperServiceWatch(this.curator, this.properties), 1L));
+
+		then(this.indicator.health()).isSameAs(health);
+	}
+
+	private void register(String id, Map<String, String> metadata) throws Exception {
+		this.serviceDiscovery.registerService(ServiceInstance.<ZookeeperInstance>builder()
+				.name("myservice").id(id).address("localhost").port(8080)
+				.payload(new ZookeeperInstance(id, "myservice", metadata)).build());
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.apache.curator.x.discovery.UriSpec;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+class ZookeeperInstanceSerializerTests {
+
+	private final ZookeeperInstanceSerializer compact = new ZookeeperInstanceSerializer(true);
+
+	private final ZookeeperInstanceSerializer json = new ZookeeperInstanceSerializer(false);
+
+	@Test
+	void should_round_trip_the_compact_encoding() throws Exception {
+		ServiceInstance<ZookeeperInstance> instance = instance();
+
+		byte[] bytes = this.compact.serialize(instance);
+		ServiceInstance<ZookeeperInstance> read = this.json.deserialize(bytes);
+
+		then(ZookeeperInstanceSerializer.isCompact(bytes)).isTrue();
+		then(bytes.length).isLessThan(this.json.serialize(instance).length);
+		then(read).usingRecursiveComparison().isEqualTo(instance);
+		then(read.buildUriSpec()).isEqualTo(instance.buildUriSpec());
+	}
+
+	@Test
+	void should_read_legacy_json() throws Exception {
+		ServiceInstance<ZookeeperInstance> instance = instance();
+		byte[] bytes = new JsonInstanceSerializer<>(ZookeeperInstance.class)
+				.serialize(instance);
+
+		then(ZookeeperInstanceSerializer.isCompact(bytes)).isFalse();
+		then(this.compact.deserialize(bytes)).usingRecursiveComparison()
+				.isEqualTo(instance);
+	}
+
+	@Test
+	void should_write_json_unless_compact() throws Exception {
+		byte[] bytes = this.json.serialize(instance());
+
+		then(new String(bytes)).startsWith("{");
+	}
+
+	@Test
+	void should_reject_truncated_compact_payload() throws Exception {
+		byte[] bytes = this.compact.serialize(instance());
+		byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+		thenThrownBy(() -> this.compact.deserialize(truncated))
+				.isInstanceOf(IOException.class);
+	}
+
+	private ServiceInstance<ZookeeperInstance> instance() throws Exception {
+		return ServiceInstance.<ZookeeperInstance>builder().name("myservice").id("one")
+				.address("localhost").port(8080).registrationTimeUTC(1234L)
+				.uriSpec(new UriSpec("{scheme}://{address}:{port}"))
+				.payload(new ZookeeperInstance("one", "myservice",
+						Collections.singletonMap("instance_status", "UP")))
+				.build();
+	}
+
+}
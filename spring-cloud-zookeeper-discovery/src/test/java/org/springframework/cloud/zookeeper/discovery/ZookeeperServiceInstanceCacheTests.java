@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+class ZookeeperServiceInstanceCacheTests {
+
+	private TestingServer server;
+
+	private CuratorFramework curator;
+
+	private ServiceDiscovery<ZookeeperInstance> serviceDiscovery;
+
+	private ZookeeperServiceInstanceCache cache;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+		InstanceSerializer<ZookeeperInstance> serializer = new JsonInstanceSerializer<>(
+				ZookeeperInstance.class);
+		this.serviceDiscovery = ServiceDiscoveryBuilder.builder(ZookeeperInstance.class)
+				.client(this.curator).basePath("/services").serializer(serializer).build();
+		this.serviceDiscovery.start();
+		this.cache = new ZookeeperServiceInstanceCache(this.curator, serializer,
+				new ZookeeperDiscoveryProperties());
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.cache.close();
+		this.serviceDiscovery.close();
+		this.curator.close();
+		this.server.close();
+	}
+
+	@Test
+	void should_return_the_same_snapshot_until_the_service_changes() throws Exception {
+		org.apache.curator.x.discovery.ServiceInstance<ZookeeperInstance> first = register("one");
+
+		// queried directly until the cache is initialized
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.cache.getInstances("myservice")).isNotNull());
+		List<ServiceInstance> instances = this.cache.getInstances("myservice");
+
+		then(instances).extracting(ServiceInstance::getInstanceId).containsExactly("one");
+		then(this.cache.getInstances("myservice")).isSameAs(instances);
+
+		register("two");
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(
+				() -> then(this.cache.getInstances("myservice")).hasSize(2));
+
+		this.serviceDiscovery.unregisterService(first);
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.cache.getInstances("myservice"))
+						.extracting(ServiceInstance::getInstanceId).containsExactly("two"));
+	}
+
+	@Test
+	void should_not_cache_a_service_that_is_not_registered() {
+		then(this.cache.getInstances("unknown")).isNull();
+	}
+
+	@Test
+	void should_hand_a_new_listener_the_current_snapshot_first() throws Exception {
+		register("one");
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.cache.getSnapshot("myservice")).isNotNull());
+		List<ZookeeperServiceInstanceSnapshot> received = new CopyOnWriteArrayList<>();
+
+		then(this.cache.addListener("myservice", (id, snapshot) -> received.add(snapshot)))
+				.isTrue();
+		then(received).containsExactly(this.cache.getSnapshot("myservice"));
+
+		register("two");
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(received).hasSize(2));
+		then(received.get(1).getUp()).hasSize(2);
+	}
+
+	private org.apache.curator.x.discovery.ServiceInstance<ZookeeperInstance> register(String id)
+			throws Exception {
+		org.apache.curator.x.discovery.ServiceInstance<ZookeeperInstance> instance = org.apache.curator.x.discovery.ServiceInstance
+				.<ZookeeperInstance>builder().name("myservice").id(id).address("localhost").port(8080)
+				.payload(new ZookeeperInstance(id, "myservice", Collections.emptyMap())).build();
+		this.serviceDiscovery.registerService(instance);
+		return instance;
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+class ZookeeperServiceInstanceFetcherTests {
+
+	private TestingServer server;
+
+	private CuratorFramework curator;
+
+	private ServiceDiscovery<ZookeeperInstance> serviceDiscovery;
+
+	private ZookeeperServiceInstanceFetcher fetcher;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+		InstanceSerializer<ZookeeperInstance> serializer = new JsonInstanceSerializer<>(
+				ZookeeperInstance.class);
+		this.serviceDiscovery = ServiceDiscoveryBuilder.builder(ZookeeperInstance.class)
+				.client(this.curator).basePath("/services").serializer(serializer).build();
+		this.serviceDiscovery.start();
+		ZookeeperDiscoveryProperties properties = new ZookeeperDiscoveryProperties();
+		properties.setInstanceFetchConcurrency(2);
+		this.fetcher = new ZookeeperServiceInstanceFetcher(this.curator, serializer,
+				properties);
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.serviceDiscovery.close();
+		this.curator.close();
+		this.server.close();
+	}
+
+	@Test
+	void should_return_the_same_instances_as_service_discovery() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			register("instance" + i);
+		}
+
+		List<ServiceInstance<ZookeeperInstance>> instances = this.fetcher
+				.queryForInstances("myservice");
+
+		then(instances).extracting(ServiceInstance::getId).containsExactlyElementsOf(
+				this.serviceDiscovery.queryForInstances("myservice").stream()
+						.map(ServiceInstance::getId).toList());
+	}
+
+	@Test
+	void should_reuse_converted_instances_until_their_znode_changes() throws Exception {
+		ServiceInstance<ZookeeperInstance> first = register("one");
+		register("two");
+
+		List<ZookeeperServiceInstance> instances = this.fetcher.getInstances("myservice");
+		List<ZookeeperServiceInstance> again = this.fetcher.getInstances("myservice");
+
+		then(find(again, "one")).isSameAs(find(instances, "one"));
+		then(find(again, "two")).isSameAs(find(instances, "two"));
+
+		this.serviceDiscovery.updateService(ServiceInstance.<ZookeeperInstance>builder()
+				.name("myservice").id("one").address("otherhost").port(8080)
+				.payload(first.getPayload()).build());
+		List<ZookeeperServiceInstance> updated = this.fetcher.getInstances("myservice");
+
+		then(find(updated, "one")).isNotSameAs(find(instances, "one"));
+		then(find(updated, "one").getHost()).isEqualTo("otherhost");
+		then(find(updated, "two")).isSameAs(find(instances, "two"));
+	}
+
+	@Test
+	void should_return_no_instances_for_an_unknown_service() throws Exception {
+		then(this.fetcher.queryForInstances("unknown")).isEmpty();
+	}
+
+	@Test
+	void should_keep_the_interrupt_of_a_waiting_thread() throws Exception {
+		this.server.stop();
+		Thread.currentThread().interrupt();
+
+		thenThrownBy(() -> this.fetcher.getInstances("myservice"))
+				.isInstanceOf(InterruptedException.class);
+		then(Thread.interrupted()).isTrue();
+	}
+
+	private ZookeeperServiceInstance find(List<ZookeeperServiceInstance> instances, String id) {
+		return instances.stream().filter(instance -> instance.getInstanceId().equals(id))
+				.findFirst().orElseThrow();
+	}
+
+	private ServiceInstance<ZookeeperInstance> register(String id) throws Exception {
+		ServiceInstance<ZookeeperInstance> instance = ServiceInstance
+				.<ZookeeperInstance>builder().name("myservice").id(id).address("localhost")
+				.port(8080)
+				.payload(new ZookeeperInstance(id, "myservice", Collections.emptyMap()))
+				.build();
+		this.serviceDiscovery.registerService(instance);
+		return instance;
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.INSTANCE_STATUS_KEY;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_OUT_OF_SERVICE;
+import static org.springframework.cloud.zookeeper.support.StatusConstants.STATUS_UP;
+
+class ZookeeperServiceInstanceSnapshotTests {
+
+	@Test
+	void should_partition_instances_by_status() throws Exception {
+		ServiceInstance up = instance("up", STATUS_UP);
+		ServiceInstance lowerCaseUp = instance("lowerCaseUp", "up");
+		ServiceInstance noStatus = instance("noStatus", null);
+		ServiceInstance outOfService = instance("outOfService", STATUS_OUT_OF_SERVICE);
+		ServiceInstance down = instance("down", "DOWN");
+		ServiceInstance notZookeeper = new DefaultServiceInstance("other", "myservice",
+				"localhost", 8080, false);
+		List<ServiceInstance> instances = Arrays.asList(up, lowerCaseUp, noStatus,
+				outOfService, down, notZookeeper);
+
+		ZookeeperServiceInstanceSnapshot snapshot = ZookeeperServiceInstanceSnapshot
+				.of(instances);
+
+		then(snapshot.getAll()).containsExactlyElementsOf(instances);
+		then(snapshot.getUp()).containsExactly(up, lowerCaseUp, noStatus);
+		then(snapshot.getOutOfService()).containsExactly(outOfService);
+		then(snapshot.getOther()).containsExactly(down, notZookeeper);
+	}
+
+	@Test
+	void should_share_the_empty_snapshot() {
+		then(ZookeeperServiceInstanceSnapshot.of(Collections.emptyList()))
+				.isSameAs(ZookeeperServiceInstanceSnapshot.empty());
+	}
+
+	private ServiceInstance instance(String id, String status) throws Exception {
+		ZookeeperInstance payload = new ZookeeperInstance(id, "myservice",
+				status == null ? Collections.emptyMap()
+						: Collections.singletonMap(INSTANCE_STATUS_KEY, status));
+		return new ZookeeperServiceInstance("myservice",
+				org.apache.curator.x.discovery.ServiceInstance.<ZookeeperInstance>builder()
+						.name("myservice").id(id).address("localhost").port(8080)
+						.payload(payload).build());
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.time.Duration;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+class ZookeeperServiceNameIndexTests {
+
+	private TestingServer server;
+
+	private CuratorFramework curator;
+
+	private ZookeeperServiceNameIndex index;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+		this.curator.blockUntilConnected();
+		this.index = new ZookeeperServiceNameIndex(this.curator,
+				new ZookeeperDiscoveryProperties());
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.index.close();
+		this.curator.close();
+		this.server.close();
+	}
+
+	@Test
+	void should_fall_back_until_loaded_and_then_follow_the_root() throws Exception {
+		then(this.index.getNames()).isNull();
+		then(this.index.isAbsent("one")).isFalse();
+
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.index.getNames()).isEmpty());
+		then(this.index.isAbsent("one")).isTrue();
+
+		this.curator.create().creatingParentsIfNeeded().forPath("/services/one/a");
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.index.getNames()).containsExactly("one"));
+		then(this.index.isAbsent("one")).isFalse();
+		then(this.index.isAbsent("one/a")).isFalse();
+		then(this.index.isAbsent("two")).isTrue();
+
+		this.curator.delete().deletingChildrenIfNeeded().forPath("/services/one");
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.index.getNames()).isEmpty());
+	}
+
+	@Test
+	void should_fall_back_once_closed() {
+		this.index.getNames();
+		await().atMost(Duration.ofSeconds(10))
+				.untilAsserted(() -> then(this.index.getNames()).isNotNull());
+
+		this.index.close();
+
+		then(this.index.getNames()).isNull();
+		then(this.index.isAbsent("one")).isFalse();
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.zookeeper.ZookeeperWatchMode;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+class ZookeeperServiceWatchTests {
+
+	private final List<Object> events = new CopyOnWriteArrayList<>();
+
+	private ZookeeperDiscoveryProperties properties;
+
+	private ZookeeperServiceWatch watch;
+
+	@BeforeEach
+	void setup() {
+		this.properties = new ZookeeperDiscoveryProperties();
+		this.watch = new ZookeeperServiceWatch(null, this.properties);
+		this.watch.setApplicationEventPublisher(this.events::add);
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.watch.stop();
+	}
+
+	@Test
+	void should_publish_one_event_per_change_by_default() throws Exception {
+		this.watch.childEvent(null, instanceAdded("/services/one/a"));
+		this.watch.childEvent(null, instanceAdded("/services/two/b"));
+
+		then(this.events).hasSize(2);
+		then(((ZookeeperHeartbeatEvent) this.events.get(0)).getServiceIds())
+				.containsExactly("one");
+		then(((ZookeeperHeartbeatEvent) this.events.get(1)).getServiceIds())
+				.containsExactly("two");
+	}
+
+	@Test
+	void should_coalesce_changes_within_the_window() throws Exception {
+		this.properties.setHeartbeatCoalesceWindow(Duration.ofMillis(200));
+
+		this.watch.childEvent(null, instanceAdded("/services/one/a"));
+		this.watch.childEvent(null, instanceAdded("/services/one/b"));
+		this.watch.childEvent(null, new TreeCacheEvent(TreeCacheEvent.Type.NODE_ADDED,
+				new ChildData("/services/two", new Stat(), new byte[0])));
+
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> then(this.events).hasSize(1));
+		then(((ZookeeperHeartbeatEvent) this.events.get(0)).getServiceIds())
+				.containsExactly("one", "two");
+	}
+
+	@Test
+	void should_publish_changes_seen_by_a_persistent_watch() throws Exception {
+		this.properties.setWatchMode(ZookeeperWatchMode.PERSISTENT_RECURSIVE);
+		try (TestingServer server = new TestingServer();
+				CuratorFramework curator = CuratorFrameworkFactory.newClient(
+						server.getConnectString(), new RetryOneTime(100))) {
+			curator.start();
+			ZookeeperServiceWatch watch = new ZookeeperServiceWatch(curator, this.properties);
+			watch.setApplicationEventPublisher(this.events::add);
+			watch.onApplicationEvent(new InstanceRegisteredEvent<>(this, null));
+			try {
+				curator.create().creatingParentsIfNeeded().forPath("/services/one/a", "{}".getBytes());
+
+				await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(this.events)
+						.anySatisfy(event -> then(((ZookeeperHeartbeatEvent) event).getServiceIds())
+								.containsExactly("one")));
+			}
+			finally {
+				watch.stop();
+			}
+		}
+	}
+
+	@Test
+	void should_report_a_nested_service_seen_by_a_persistent_watch() throws Exception {
+		this.properties.setWatchMode(ZookeeperWatchMode.PERSISTENT_RECURSIVE);
+		try (TestingServer server = new TestingServer();
+				CuratorFramework curator = CuratorFrameworkFactory.newClient(
+						server.getConnectString(), new RetryOneTime(100))) {
+			curator.start();
+			ZookeeperServiceWatch watch = new ZookeeperServiceWatch(curator, this.properties);
+			watch.setApplicationEventPublisher(this.events::add);
+			watch.onApplicationEvent(new InstanceRegisteredEvent<>(this, null));
+			try {
+				curator.create().creatingParentsIfNeeded().forPath("/services/ns/foo");
+
+				await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(this.events)
+						.anySatisfy(event -> then(((ZookeeperHeartbeatEvent) event).getServiceIds())
+								.contains("ns/foo")));
+			}
+			finally {
+				watch.stop();
+			}
+		}
+	}
+
+	@Test
+	void should_drop_changes_seen_once_stopped() throws Exception {
+		this.properties.setHeartbeatCoalesceWindow(Duration.ofMillis(100));
+		this.watch.childEvent(null, instanceAdded("/services/one/a"));
+
+		this.watch.stop();
+		this.watch.childEvent(null, instanceAdded("/services/two/b"));
+
+		Thread.sleep(300);
+		then(this.events).isEmpty();
+	}
+
+	private TreeCacheEvent instanceAdded(String path) {
+		return new TreeCacheEvent(TreeCacheEvent.Type.NODE_ADDED,
+				new ChildData(path, new Stat(), "{}".getBytes()));
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.zookeeper.discovery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.ServiceDiscoveryBuilder;
+import org.apache.curator.x.discovery.details.InstanceSerializer;
+import org.apache.curator.x.discovery.details.JsonInstanceSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ZookeeperWatchingServiceInstanceListSupplierTests {
+
+	private TestingServer server;
+
+	private CuratorFramework curator;
+
+	private ServiceDiscovery<ZookeeperInstance> serviceDiscovery;
+
+	private ZookeeperServiceInstanceCache cache;
+
+	private final List<ServiceInstance> queried = new ArrayList<>();
+
+	private final ServiceInstanceListSupplier fallback = mock(ServiceInstanceListSupplier.class);
+
+	private ZookeeperWatchingServiceInstanceListSupplier supplier;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.server = new TestingServer();
+		this.curator = CuratorFrameworkFactory.newClient(this.server.getConnectString(),
+				new RetryOneTime(100));
+		this.curator.start();
+		InstanceSerializer<ZookeeperInstance> serializer = new JsonInstanceSerializer<>(
+				ZookeeperInstance.class);
+		this.serviceDiscovery = ServiceDiscoveryBuilder.builder(ZookeeperInstance.class)
+				.client(this.curator).basePath("/services").serializer(serializer).build();
+		this.serviceDiscovery.start();
+		this.cache = new ZookeeperServiceInstanceCache(this.curator, serializer,
+				new ZookeeperDiscoveryProperties());
+		given(this.fallback.get()).willReturn(Flux.just(this.queried));
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		if (this.supplier != null) {
+			this.supplier.close();
+		}
+		this.cache.close();
+		this.serviceDiscovery.close();
+		this.curator.close();
+		this.server.close();
+	}
+
+	@Test
+	void should_emit_the_instances_again_when_they_change() throws Exception {
+		register("one");
+		this.supplier = new ZookeeperWatchingServiceInstanceListSupplier("myservice",
+				this.cache, this.fallback);
+		List<List<ServiceInstance>> received = new CopyOnWriteArrayList<>();
+		this.supplier.get().subscribe(received::add);
+
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(received).hasSize(1));
+		then(received.get(0)).extracting(ServiceInstance::getInstanceId).containsExactly("one");
+
+		register("two");
+
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(received).hasSize(2));
+		then(received.get(1)).extracting(ServiceInstance::getInstanceId)
+				.containsExactly("one", "two");
+	}
+
+	@Test
+	void should_replay_the_latest_instances_to_a_late_subscriber() throws Exception {
+		register("one");
+		this.supplier = new ZookeeperWatchingServiceInstanceListSupplier("myservice",
+				this.cache, this.fallback);
+		List<List<ServiceInstance>> received = new CopyOnWriteArrayList<>();
+		this.supplier.get().subscribe(received::add);
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(received).hasSize(1));
+		register("two");
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> then(received).hasSize(2));
+
+		then(this.supplier.get().blockFirst()).isSameAs(received.get(1));
+	}
+
+	@Test
+	void should_fall_back_while_the_service_cannot_be_watched() {
+		this.cache.close();
+		this.supplier = new ZookeeperWatchingServiceInstanceListSupplier("myservice",
+				this.cache, this.fallback);
+
+		then(this.supplier.get().blockFirst()).isSameAs(this.queried);
+		then(this.supplier.get().blockFirst()).isSameAs(this.queried);
+	}
+
+	@Test
+	void should_watch_the_service_again_after_a_failed_start() {
+		ZookeeperServiceInstanceCache instanceCache = mock(ZookeeperServiceInstanceCache.class);
+		ZookeeperServiceInstanceSnapshot snapshot = ZookeeperServiceInstanceSnapshot
+				.of(Collections.emptyList());
+		given(instanceCache.addListener(eq("myservice"), any())).willReturn(false)
+				.willAnswer(invocation -> {
+					invocation.<ZookeeperServiceInstanceCache.Listener>getArgument(1)
+							.instancesChanged("myservice", snapshot);
+					return true;
+				});
+		this.supplier = new ZookeeperWatchingServiceInstanceListSupplier("myservice",
+				instanceCache, this.fallback);
+
+		then(this.supplier.get().blockFirst()).isSameAs(this.queried);
+
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(
+				() -> then(this.supplier.get().blockFirst()).isSameAs(snapshot.getUp()));
+	}
+
+	private void register(String id) throws Exception {
+		this.serviceDiscovery.registerService(org.apache.curator.x.discovery.ServiceInstance
+				.<ZookeeperInstance>builder().name("myservice").id(id).address("localhost")
+				.port(8080).payload(new ZookeeperInstance(id, "myservice", Collections.emptyMap()))
+				.build());
+	}
+
+}
@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.zookeeper.discovery.reactive;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.curator.x.discovery.ServiceDiscovery;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,10 +31,13 @@ import reactor.test.StepVerifier;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperDiscoveryProperties;
 import org.springframework.cloud.zookeeper.discovery.ZookeeperInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstance;
+import org.springframework.cloud.zookeeper.discovery.ZookeeperServiceInstanceFetcher;
 import org.springframework.cloud.zookeeper.discovery.dependency.ZookeeperDependencies;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 /**
@@ -118,6 +124,39 @@ class ZookeeperReactiveDiscoveryClientTests {
 		StepVerifier.create(services).expectNextCount(1).expectComplete().verify();
 	}
 
+	@Test
+	public void shouldReturnFluxOfServiceInstancesFromFetcher() {
+		configureServiceInstance();
+		ZookeeperServiceInstanceFetcher fetcher = mock(ZookeeperServiceInstanceFetcher.class);
+		when(fetcher.getInstancesAsync("existing-service")).thenReturn(CompletableFuture
+				.completedFuture(singletonList(new ZookeeperServiceInstance("existing-service", serviceInstance))));
+		ZookeeperReactiveDiscoveryClient client = new ZookeeperReactiveDiscoveryClient(zkClient, null,
+				zookeeperDiscoveryProperties, fetcher);
+		Flux<ServiceInstance> services = client.getInstances("existing-service");
+		StepVerifier.create(services).expectNextCount(1).expectComplete().verify();
+	}
+
+	@Test
+	public void shouldReturnEmptyFluxOfServicesWhenFetcherFails() {
+		ZookeeperServiceInstanceFetcher fetcher = mock(ZookeeperServiceInstanceFetcher.class);
+		when(fetcher.queryForNamesAsync())
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException()));
+		ZookeeperReactiveDiscoveryClient client = new ZookeeperReactiveDiscoveryClient(zkClient, null,
+				zookeeperDiscoveryProperties, fetcher);
+		StepVerifier.create(client.getServices()).expectNextCount(0).expectComplete().verify();
+	}
+
+	@Test
+	public void shouldCancelPendingFetchWhenSubscriptionIsCancelled() {
+		ZookeeperServiceInstanceFetcher fetcher = mock(ZookeeperServiceInstanceFetcher.class);
+		CompletableFuture<List<ZookeeperServiceInstance>> pending = new CompletableFuture<>();
+		when(fetcher.getInstancesAsync("existing-service")).thenReturn(pending);
+		ZookeeperReactiveDiscoveryClient client = new ZookeeperReactiveDiscoveryClient(zkClient, null,
+				zookeeperDiscoveryProperties, fetcher);
+		client.getInstances("existing-service").subscribe().dispose();
+		assertThat(pending).isCancelled();
+	}
+
 	private void configureServiceInstance() {
 		when(serviceInstance.getAddress()).thenReturn("http://localhost");
 		when(serviceInstance.getPort()).thenReturn(80);